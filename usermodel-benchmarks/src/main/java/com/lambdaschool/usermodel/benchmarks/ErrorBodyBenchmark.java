@@ -0,0 +1,139 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.handlers.ErrorBodyWriter;
+import com.lambdaschool.usermodel.models.ErrorDetail;
+import com.lambdaschool.usermodel.services.HelperFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing the 404 body of a ResourceNotFoundException with ErrorBodyWriter against building an ErrorDetail
+ * and serializing it with the application's ObjectMapper, as the handler did before.
+ * <p>
+ * Run with -prof gc to see the allocation per body, which is what ErrorBodyWriter saves. Both write to a
+ * MockHttpServletResponse emptied before each call, and both report the same exception, made once, so neither
+ * the response nor the exception is counted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3,
+        time = 2)
+@Measurement(iterations = 5,
+        time = 2)
+@Fork(1)
+public class ErrorBodyBenchmark
+{
+    /**
+     * The application, for its ObjectMapper, HelperFunctions and ErrorBodyWriter, booted with no synthetic users
+     */
+    @State(Scope.Benchmark)
+    public static class Handlers
+    {
+        private ConfigurableApplicationContext context;
+
+        private ObjectMapper objectMapper;
+
+        private HelperFunctions helperFunctions;
+
+        private ErrorBodyWriter errorBodyWriter;
+
+        private final ResourceNotFoundException notFound = new ResourceNotFoundException("User id 1234567 not found!");
+
+        @Setup(Level.Trial)
+        public void start()
+        {
+            context = UserModelState.boot();
+            objectMapper = context.getBean(ObjectMapper.class);
+            helperFunctions = context.getBean(HelperFunctions.class);
+            errorBodyWriter = context.getBean(ErrorBodyWriter.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop()
+        {
+            context.close();
+        }
+    }
+
+    /**
+     * The response of one benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Response
+    {
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        /**
+         * Empties the response, keeping its buffer
+         *
+         * @return the response
+         */
+        MockHttpServletResponse empty()
+        {
+            response.reset();
+            return response;
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse errorBodyWriter(
+            Handlers handlers,
+            Response response) throws
+            IOException
+    {
+        MockHttpServletResponse out = response.empty();
+        handlers.errorBodyWriter.write(out,
+                                       HttpStatus.NOT_FOUND,
+                                       "Resource Not Found",
+                                       handlers.notFound);
+        return out;
+    }
+
+    /**
+     * What the handler did before: an ErrorDetail written the way Spring's Jackson message converter writes it,
+     * to a stream it does not close
+     */
+    @Benchmark
+    public MockHttpServletResponse errorDetail(
+            Handlers handlers,
+            Response response) throws
+            IOException
+    {
+        ErrorDetail errorDetail = new ErrorDetail();
+        errorDetail.setTimestamp(new Date());
+        errorDetail.setStatus(HttpStatus.NOT_FOUND.value());
+        errorDetail.setTitle("Resource Not Found");
+        errorDetail.setDetail(handlers.notFound.getMessage());
+        errorDetail.setDeveloperMessage(handlers.notFound.getClass()
+                                                .getName());
+        errorDetail.setErrors(handlers.helperFunctions.getConstraintViolation(handlers.notFound));
+
+        MockHttpServletResponse out = response.empty();
+        out.setStatus(HttpStatus.NOT_FOUND.value());
+        out.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        handlers.objectMapper.writeValue(StreamUtils.nonClosing(out.getOutputStream()),
+                                         errorDetail);
+        return out;
+    }
+}
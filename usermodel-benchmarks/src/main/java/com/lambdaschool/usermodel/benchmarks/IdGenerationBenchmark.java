@@ -0,0 +1,119 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.services.RoleService;
+import com.lambdaschool.usermodel.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many users a second UserService.saveAll inserts, with ids from pooled-lo sequences reserving
+ * a block of ids per call against one sequence call for every row.
+ * <p>
+ * Each user has two emails and one role, so it takes three generated ids. The score is per user.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3,
+        time = 2)
+@Measurement(iterations = 5,
+        time = 2)
+@Fork(1)
+public class IdGenerationBenchmark
+{
+    /**
+     * Number of users in each call to saveAll
+     */
+    private static final int BATCH = 100;
+
+    /**
+     * The application, booted with no synthetic users and the given allocation size
+     */
+    @State(Scope.Benchmark)
+    public static class Inserts
+    {
+        /**
+         * Ids reserved by each sequence call. 1 is a sequence call for every row, 50 is the application's default.
+         */
+        @Param({"1", "50"})
+        public int allocationSize;
+
+        private ConfigurableApplicationContext context;
+
+        private UserService userService;
+
+        private Role userRole;
+
+        private long created;
+
+        @Setup(Level.Trial)
+        public void start()
+        {
+            context = UserModelState.boot("--spring.jpa.properties.usermodel.id.allocation_size=" + allocationSize);
+            userService = context.getBean(UserService.class);
+            userRole = context.getBean(RoleService.class)
+                    .findByName("user");
+        }
+
+        @TearDown(Level.Trial)
+        public void stop()
+        {
+            context.close();
+        }
+
+        /**
+         * Makes the next batch of users, not yet in the database
+         *
+         * @return the users (List) to save
+         */
+        synchronized List<User> batch()
+        {
+            List<User> users = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++)
+            {
+                String username = "insert" + created++;
+                User user = new User(username,
+                                     "password",
+                                     username + "@bench.local");
+                user.getRoles()
+                        .add(new UserRoles(user,
+                                           userRole));
+                user.getUseremails()
+                        .add(new Useremail(user,
+                                           username + ".0@mail.local"));
+                user.getUseremails()
+                        .add(new Useremail(user,
+                                           username + ".1@mail.local"));
+                users.add(user);
+            }
+            return users;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<User> saveAll(Inserts inserts)
+    {
+        return inserts.userService.saveAll(inserts.batch());
+    }
+}
@@ -0,0 +1,91 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures UserService.findUserById for ids no user has, with and without the stack trace of the
+ * ResourceNotFoundException it throws.
+ * <p>
+ * Called from here the stack is far shallower than under a web request, which adds the servlet container
+ * and Spring MVC frames, so a real request saves more than this shows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,
+        time = 2)
+@Measurement(iterations = 5,
+        time = 2)
+@Fork(1)
+public class MissingUserBenchmark
+{
+    /**
+     * The application, booted with no synthetic users and the given stack trace sample rate
+     */
+    @State(Scope.Benchmark)
+    public static class Lookups
+    {
+        /**
+         * Share of the exceptions that capture a stack trace. 0 is what the application ships with, 1 captures
+         * them all as before sampling was added.
+         */
+        @Param({"0", "1"})
+        public double sampleRate;
+
+        private ConfigurableApplicationContext context;
+
+        private UserService userService;
+
+        @Setup(Level.Trial)
+        public void start()
+        {
+            context = UserModelState.boot("--exceptions.stacktrace.sample-rate=" + sampleRate);
+            userService = context.getBean(UserService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop()
+        {
+            context.close();
+        }
+    }
+
+    /**
+     * The missing ids of one benchmark thread, all far above any id the application hands out
+     */
+    @State(Scope.Thread)
+    public static class MissingIds
+    {
+        private long next = 1_000_000_000L;
+    }
+
+    @Benchmark
+    public Object findMissingUser(
+            Lookups lookups,
+            MissingIds ids)
+    {
+        try
+        {
+            return lookups.userService.findUserById(ids.next++);
+        } catch (ResourceNotFoundException e)
+        {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the users of a role with many members, the set Hibernate fills when Role.users is loaded.
+ * No application is booted; the users and user roles are made in memory, with their ids set as if loaded.
+ * <p>
+ * contains is measured per call. add and remove change the set, so they run in batches of BATCH calls,
+ * each batch on a role filled again before it, and their scores are the time of a whole batch.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,
+        time = 2)
+@Measurement(iterations = 5,
+        time = 2)
+@Fork(1)
+public class RoleUsersBenchmark
+{
+    /**
+     * Number of calls to add or remove in each batch
+     */
+    private static final int BATCH = 1000;
+
+    /**
+     * A role and the users holding it. Filled again before each iteration, so add and remove always start from
+     * a role with the given number of members.
+     */
+    @State(Scope.Thread)
+    public static class Members
+    {
+        /**
+         * Number of users holding the role. Change it with -p members=10000,1000000
+         */
+        @Param({"10000", "100000"})
+        public int members;
+
+        private Role role;
+
+        /**
+         * The user roles in the role's set
+         */
+        private UserRoles[] held;
+
+        /**
+         * User roles of users not yet in the set, added by add
+         */
+        private UserRoles[] joining;
+
+        private SplittableRandom random;
+
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void fill()
+        {
+            role = new Role("user");
+            role.setRoleid(2);
+            held = new UserRoles[members];
+            for (int i = 0; i < members; i++)
+            {
+                held[i] = userRole(i);
+                role.getUsers()
+                        .add(held[i]);
+            }
+            joining = new UserRoles[BATCH];
+            for (int i = 0; i < BATCH; i++)
+            {
+                joining[i] = userRole(members + i);
+            }
+            random = new SplittableRandom(UserModelState.SEED);
+            next = 0;
+        }
+
+        private UserRoles userRole(long userid)
+        {
+            User user = new User("member" + userid,
+                                 "password",
+                                 "member" + userid + "@bench.local");
+            user.setUserid(userid + 1);
+            return new UserRoles(user,
+                                 role);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean contains(Members state)
+    {
+        return state.role.getUsers()
+                .contains(state.held[state.random.nextInt(state.members)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10,
+            batchSize = BATCH)
+    @Measurement(iterations = 20,
+            batchSize = BATCH)
+    public boolean add(Members state)
+    {
+        return state.role.getUsers()
+                .add(state.joining[state.next++]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10,
+            batchSize = BATCH)
+    @Measurement(iterations = 20,
+            batchSize = BATCH)
+    public boolean remove(Members state)
+    {
+        return state.role.getUsers()
+                .remove(state.held[state.next++]);
+    }
+}
@@ -0,0 +1,165 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.UserModelApplication;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.services.RoleService;
+import com.lambdaschool.usermodel.services.UserService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application, booted once per fork, with its database holding the synthetic users.
+ * The users are seeded by the application itself, through seed.users, so the benchmarks measure the same data
+ * a capacity test started with --seed.users does.
+ */
+@State(Scope.Benchmark)
+public class UserModelState
+{
+    /**
+     * The seed the synthetic users are made from. Fixed so every run measures the same data.
+     */
+    public static final long SEED = 20200701L;
+
+    /**
+     * The number of synthetic users in the database. Change it with -p users=100000,1000000
+     */
+    @Param({"10000"})
+    public int users;
+
+    /**
+     * The running application
+     */
+    private ConfigurableApplicationContext context;
+
+    /**
+     * The UserService of the running application
+     */
+    UserService userService;
+
+    /**
+     * The USER role, given to every user the benchmarks make
+     */
+    Role userRole;
+
+    /**
+     * The primary key (long) of each user in the database, in order
+     */
+    private long[] userids;
+
+    /**
+     * The username (String) of each user, in the same order as the userids
+     */
+    private String[] usernames;
+
+    /**
+     * Boots the application without its web server, H2 servers or console output, on a database of its own
+     *
+     * @param settings further settings (String) for the application, each as --name=value
+     * @return the running application
+     */
+    static ConfigurableApplicationContext boot(String... settings)
+    {
+        List<String> args = new ArrayList<>(Arrays.asList("--spring.main.web-application-type=none",
+                                                          "--spring.datasource.url=jdbc:h2:mem:benchmarks",
+                                                          "--h2.tcp.enabled=false",
+                                                          "--h2.web.enabled=false",
+                                                          "--spring.h2.console.enabled=false",
+                                                          "--logging.level.root=WARN"));
+        args.addAll(Arrays.asList(settings));
+        return new SpringApplicationBuilder(UserModelApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Boots the application. SeedData seeds the known data and then the synthetic users.
+     */
+    @Setup(Level.Trial)
+    public void start()
+    {
+        context = boot("--seed.users=" + users,
+                       "--seed.random-seed=" + SEED);
+        userService = context.getBean(UserService.class);
+        userRole = context.getBean(RoleService.class)
+                .findByName("user");
+
+        List<Map<String, Object>> rows = context.getBean(JdbcTemplate.class)
+                .queryForList("SELECT userid, username FROM users ORDER BY userid");
+        userids = new long[rows.size()];
+        usernames = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++)
+        {
+            userids[i] = ((Number) rows.get(i)
+                    .get("USERID")).longValue();
+            usernames[i] = (String) rows.get(i)
+                    .get("USERNAME");
+        }
+    }
+
+    /**
+     * Looks up a bean of the running application, for benchmarks that go below the UserService
+     *
+     * @param type the class of the bean
+     * @param <T>  the type of the bean
+     * @return the bean
+     */
+    <T> T bean(Class<T> type)
+    {
+        return context.getBean(type);
+    }
+
+    /**
+     * The number of users in the database, the synthetic users and the few SeedData always adds
+     *
+     * @return the number (int) of users
+     */
+    int size()
+    {
+        return userids.length;
+    }
+
+    /**
+     * The primary key of a user
+     *
+     * @param index which user (int), from 0 to size - 1
+     * @return the userid (long) of that user
+     */
+    long userid(int index)
+    {
+        return userids[index];
+    }
+
+    /**
+     * The username of a user
+     *
+     * @param index which user (int), from 0 to size - 1
+     * @return the username (String) of that user
+     */
+    String username(int index)
+    {
+        return usernames[index];
+    }
+
+    /**
+     * Stops the application, which drops the in memory database
+     */
+    @TearDown(Level.Trial)
+    public void stop()
+    {
+        context.close();
+    }
+}
@@ -0,0 +1,188 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the UserService against the synthetic users.
+ * <p>
+ * Reads pick a random synthetic user each time, so with the default user cache settings
+ * findUserById and findByName mostly measure cache hits once warmed up; run with
+ * -jvmArgsAppend -Duser.cache.maximum-size=0 to measure the database path.
+ * Writes make new users named new{n} so they never clash with the synthetic users.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,
+        time = 2)
+@Measurement(iterations = 5,
+        time = 2)
+@Fork(1)
+public class UserServiceBenchmark
+{
+    /**
+     * Number of users each iteration of delete deletes
+     */
+    private static final int DELETE_BATCH = 200;
+
+    /**
+     * The random choices of one benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Picks
+    {
+        private SplittableRandom random;
+
+        private long created;
+
+        @Setup(Level.Trial)
+        public void start()
+        {
+            random = new SplittableRandom(UserModelState.SEED);
+        }
+
+        /**
+         * Picks one of the synthetic users
+         *
+         * @param state the application holding the synthetic users
+         * @return the index (int) of the user
+         */
+        int user(UserModelState state)
+        {
+            return random.nextInt(state.size());
+        }
+
+        /**
+         * Makes a user that is not yet in the database, with the USER role and one email
+         *
+         * @param state the application the user is for
+         * @return the new user
+         */
+        User newUser(UserModelState state)
+        {
+            // the thread id keeps names apart when running with more than one thread
+            String username = "new" + Thread.currentThread()
+                    .getId() + "x" + created++;
+            User user = new User(username,
+                                 "password",
+                                 username + "@bench.local");
+            user.getRoles()
+                    .add(new UserRoles(user,
+                                       state.userRole));
+            user.getUseremails()
+                    .add(new Useremail(user,
+                                       username + "@mail.local"));
+            return user;
+        }
+    }
+
+    /**
+     * Users made before each iteration of delete, one for each call in the batch, so every call has a user
+     * of its own to delete. Making them outside the timed batch keeps the save out of the score, without the
+     * cost and skew of a setup before every call.
+     */
+    @State(Scope.Thread)
+    public static class Doomed
+    {
+        private final long[] userids = new long[DELETE_BATCH];
+
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void create(
+                UserModelState state,
+                Picks picks)
+        {
+            for (int i = 0; i < DELETE_BATCH; i++)
+            {
+                userids[i] = state.userService.save(picks.newUser(state))
+                        .getUserid();
+            }
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    public User findUserById(
+            UserModelState state,
+            Picks picks)
+    {
+        return state.userService.findUserById(state.userid(picks.user(state)));
+    }
+
+    @Benchmark
+    public User findByName(
+            UserModelState state,
+            Picks picks)
+    {
+        return state.userService.findByName(state.username(picks.user(state)));
+    }
+
+    /**
+     * Searches with the full name of a synthetic user. Synthetic usernames end in the number of the user, so
+     * the name also matches the few users with the same first and last name whose number starts with that one.
+     */
+    @Benchmark
+    public List<User> findByNameContaining(
+            UserModelState state,
+            Picks picks)
+    {
+        return state.userService.findByNameContaining(state.username(picks.user(state)));
+    }
+
+    @Benchmark
+    public User save(
+            UserModelState state,
+            Picks picks)
+    {
+        return state.userService.save(picks.newUser(state));
+    }
+
+    /**
+     * Changes the primary email of a synthetic user
+     */
+    @Benchmark
+    public User update(
+            UserModelState state,
+            Picks picks)
+    {
+        int index = picks.user(state);
+        User changes = new User();
+        changes.setPrimaryemail(state.username(index) + "." + picks.random.nextInt(1_000_000) + "@bench.local");
+        return state.userService.update(changes,
+                                        state.userid(index));
+    }
+
+    /**
+     * Deletes the users Doomed made, DELETE_BATCH to an iteration. The score is the time of a whole batch.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5,
+            batchSize = DELETE_BATCH)
+    @Measurement(iterations = 10,
+            batchSize = DELETE_BATCH)
+    public void delete(
+            UserModelState state,
+            Doomed doomed)
+    {
+        state.userService.delete(doomed.userids[doomed.next++]);
+    }
+}
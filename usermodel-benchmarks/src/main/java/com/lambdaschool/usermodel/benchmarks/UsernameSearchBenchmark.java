@@ -0,0 +1,118 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import com.lambdaschool.usermodel.services.UsernameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the username trigram index with the LIKE '%...%' query it replaced, for "username contains" searches.
+ * <p>
+ * indexIds and likeIds only find the matching userids, so they compare the searches themselves.
+ * findByNameContaining and likeUsers also load the matching users, as the service did before and does now.
+ * The search strings are four letters from the middle of the seeded usernames, so most match a few users.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,
+        time = 2)
+@Measurement(iterations = 5,
+        time = 2)
+@Fork(1)
+public class UsernameSearchBenchmark
+{
+    /**
+     * How many search strings each thread cycles through
+     */
+    private static final int SEARCHES = 1024;
+
+    /**
+     * The search strings of one benchmark thread and the parts of the application they are run against
+     */
+    @State(Scope.Thread)
+    public static class Searches
+    {
+        private final String[] searches = new String[SEARCHES];
+
+        private int next;
+
+        private UsernameIndex usernameIndex;
+
+        private UserRepository userRepository;
+
+        private JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void start(UserModelState state)
+        {
+            SplittableRandom random = new SplittableRandom(UserModelState.SEED);
+            for (int i = 0; i < SEARCHES; i++)
+            {
+                String username = state.username(random.nextInt(state.size()));
+                int from = random.nextInt(Math.max(1,
+                                                   username.length() - 4));
+                searches[i] = username.substring(from,
+                                                 Math.min(username.length(),
+                                                          from + 4));
+            }
+            usernameIndex = state.bean(UsernameIndex.class);
+            userRepository = state.bean(UserRepository.class);
+            jdbcTemplate = state.bean(JdbcTemplate.class);
+        }
+
+        /**
+         * The next search string, going round the list
+         *
+         * @return the search string
+         */
+        String next()
+        {
+            next = (next + 1) % SEARCHES;
+            return searches[next];
+        }
+    }
+
+    @Benchmark
+    public List<Long> indexIds(Searches searches)
+    {
+        return searches.usernameIndex.findUseridsContaining(searches.next());
+    }
+
+    @Benchmark
+    public List<Long> likeIds(Searches searches)
+    {
+        return searches.jdbcTemplate.queryForList("SELECT userid FROM users WHERE LOWER(username) LIKE ? ORDER BY userid",
+                                                  Long.class,
+                                                  "%" + searches.next()
+                                                          .toLowerCase() + "%");
+    }
+
+    @Benchmark
+    public List<User> findByNameContaining(
+            UserModelState state,
+            Searches searches)
+    {
+        return state.userService.findByNameContaining(searches.next());
+    }
+
+    @Benchmark
+    public List<User> likeUsers(Searches searches)
+    {
+        return searches.userRepository.findByUsernameContainingIgnoreCase(searches.next());
+    }
+}
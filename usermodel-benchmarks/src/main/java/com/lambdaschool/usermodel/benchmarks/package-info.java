@@ -0,0 +1,7 @@
+/**
+ * Contains the JMH benchmarks for the service layer of the user model application.
+ * The application is booted, without its web server, against an in memory H2 database filled with synthetic users.
+ *
+ * @author John Mitchell (john@lambdaschool.com) with Lambda School unless otherwise noted.
+ */
+package com.lambdaschool.usermodel.benchmarks;
@@ -1,20 +1,22 @@
 package com.lambdaschool.usermodel;
 
-import com.github.javafaker.Faker;
-import com.github.javafaker.service.FakeValuesService;
-import com.github.javafaker.service.RandomService;
 import com.lambdaschool.usermodel.models.Role;
 import com.lambdaschool.usermodel.models.User;
 import com.lambdaschool.usermodel.models.UserRoles;
 import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.services.AfterCommit;
 import com.lambdaschool.usermodel.services.RoleService;
 import com.lambdaschool.usermodel.services.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Locale;
+import java.nio.file.Path;
+import java.util.Optional;
 
 /**
  * SeedData puts both known and random data into the database. It implements CommandLineRunner.
@@ -27,6 +29,14 @@ import java.util.Locale;
 public class SeedData
         implements CommandLineRunner
 {
+    /**
+     * The version of the known data below. Change it whenever the known data changes, so databases and snapshots
+     * holding the old data are seeded again.
+     */
+    static final int SEED_VERSION = 1;
+
+    private static final Logger logger = LoggerFactory.getLogger(SeedData.class);
+
     /**
      * Connects the Role Service to this process
      */
@@ -39,12 +49,45 @@ public class SeedData
     @Autowired
     UserService userService;
 
+    /**
+     * Writes the generated users for capacity testing
+     */
+    @Autowired
+    SyntheticSeedData syntheticSeedData;
+
+    /**
+     * Number of generated users to seed besides the known ones, default 0
+     */
+    @Value("${seed.users:0}")
+    int syntheticUsers;
+
+    /**
+     * The seed the generated users come from. Part of the seed checksum.
+     */
+    @Value("${seed.random-seed:42}")
+    long randomSeed;
+
+    /**
+     * Whether to keep the data of a database that already holds this seed, default false
+     */
+    @Value("${seed.reuse:false}")
+    boolean reuse;
+
+    /**
+     * Records and snapshots each seed
+     */
+    @Autowired
+    SeedHistory seedHistory;
+
     /**
      * Generates test, seed data for our application
      * First a set of known data is seeded into our database.
-     * Second a random set of data using Java Faker is seeded into our database.
-     * Note this process does not remove data from the database. So if data exists in the database
-     * prior to running this process, that data remains in the database.
+     * Second, when seed.users is set, that many generated users are seeded by SyntheticSeedData
+     * once the known data is committed.
+     * Any data already in the users and roles tables is removed first.
+     * <p>
+     * Seeding is skipped when seed.reuse is set and the database already holds the same seed, and replaced by
+     * loading a snapshot when SeedHistory has one of the same seed.
      *
      * @param args The parameter is required by the parent interface but is not used in this process.
      */
@@ -53,6 +96,24 @@ public class SeedData
     public void run(String[] args) throws
             Exception
     {
+        long start = System.nanoTime();
+        String checksum = seedHistory.checksum(SEED_VERSION,
+                                               syntheticUsers,
+                                               randomSeed);
+        if (reuse && seedHistory.isSeeded(checksum))
+        {
+            logger.info("Seed " + checksum + " already in the database, seeding skipped in " + millisSince(start) + " ms");
+            return;
+        }
+
+        Optional<Path> snapshot = seedHistory.findSnapshot(checksum);
+        if (snapshot.isPresent())
+        {
+            seedHistory.restore(snapshot.get());
+            logger.info("Seed " + checksum + " restored from " + snapshot.get() + " in " + millisSince(start) + " ms");
+            return;
+        }
+
         userService.deleteAll();
         roleService.deleteAll();
         Role r1 = new Role("admin");
@@ -126,33 +187,27 @@ public class SeedData
                 .add(new UserRoles(u5, r2));
         userService.save(u5);
 
-        if (false)
-        {
-            // using JavaFaker create a bunch of regular users
-            // https://www.baeldung.com/java-faker
-            // https://www.baeldung.com/regular-expressions-java
-
-            FakeValuesService fakeValuesService = new FakeValuesService(new Locale("en-US"),
-                                                                        new RandomService());
-            Faker nameFaker = new Faker(new Locale("en-US"));
-
-            for (int i = 0; i < 25; i++)
-            {
-                new User();
-                User fakeUser;
-
-                fakeUser = new User(nameFaker.name()
-                                            .username(),
-                                    "password",
-                                    nameFaker.internet()
-                                            .emailAddress());
-                fakeUser.getRoles()
-                        .add(new UserRoles(fakeUser, r2));
-                fakeUser.getUseremails()
-                        .add(new Useremail(fakeUser,
-                                           fakeValuesService.bothify("????##@gmail.com")));
-                userService.save(fakeUser);
-            }
-        }
+        // the synthetic users are written on other connections, which only see the roles once they are committed
+        long adminRoleid = r1.getRoleid();
+        long userRoleid = r2.getRoleid();
+        long dataRoleid = r3.getRoleid();
+        AfterCommit.run(() ->
+                        {
+                            if (syntheticUsers > 0)
+                            {
+                                syntheticSeedData.seed(syntheticUsers,
+                                                       adminRoleid,
+                                                       userRoleid,
+                                                       dataRoleid);
+                            }
+                            seedHistory.record(checksum);
+                            seedHistory.snapshot(checksum);
+                            logger.info("Seed " + checksum + " written in " + millisSince(start) + " ms");
+                        });
+    }
+
+    private static long millisSince(long start)
+    {
+        return (System.nanoTime() - start) / 1_000_000;
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.lambdaschool.usermodel;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Remembers which seed the database holds, so SeedData can skip seeding a database that already holds it,
+ * or load it from a snapshot rather than building it again.
+ * <p>
+ * A seed is identified by a checksum of what went into it: the version of the known data, the seed settings
+ * and the columns of our tables. Once a seed is written, its checksum is recorded in the seed_version table.
+ * <p>
+ * When seed.snapshot-dir is set, each seed is also saved there as a compressed H2 script named after its
+ * checksum. A later start wanting the same seed, say on a fresh in memory database, runs that script instead.
+ * Any change to the seed or the tables changes the checksum, so an out of date snapshot is never loaded.
+ */
+@Component
+public class SeedHistory
+{
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS seed_version (" +
+            "checksum VARCHAR(32) NOT NULL, seeded_date TIMESTAMP NOT NULL)";
+
+    /**
+     * Lists the columns of our tables, in a fixed order, for the checksum
+     */
+    private static final String COLUMNS = "SELECT table_name || '.' || column_name || ' ' || type_name " +
+            "FROM information_schema.columns " +
+            "WHERE table_schema = 'PUBLIC' AND table_name IN ('USERS', 'USEREMAILS', 'USERROLES', 'ROLES') " +
+            "ORDER BY table_name, ordinal_position";
+
+    /**
+     * Reads and writes the seed_version table and the snapshots
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Gives each change its own transaction, as they are made around SeedData's transaction
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Directory holding the snapshots. Empty, the default, turns snapshots off.
+     */
+    @Value("${seed.snapshot-dir:}")
+    private String snapshotDir;
+
+    /**
+     * Works out the checksum of a seed
+     *
+     * @param version    The version (int) of the known data
+     * @param users      The number (int) of generated users
+     * @param randomSeed The seed (long) the generated users come from
+     * @return The checksum (String) of the seed and the current tables
+     */
+    public String checksum(
+            int version,
+            int users,
+            long randomSeed)
+    {
+        StringBuilder seed = new StringBuilder();
+        seed.append("version=")
+                .append(version)
+                .append(";users=")
+                .append(users)
+                .append(";random-seed=")
+                .append(randomSeed);
+        for (String column : jdbcTemplate.queryForList(COLUMNS,
+                                                       String.class))
+        {
+            seed.append(';')
+                    .append(column);
+        }
+        return DigestUtils.md5DigestAsHex(seed.toString()
+                                                  .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tells whether the database already holds the given seed
+     *
+     * @param checksum The checksum (String) of the seed
+     * @return true if the seed recorded in the database has the given checksum
+     */
+    public boolean isSeeded(String checksum)
+    {
+        Integer tables = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables " +
+                                                             "WHERE table_schema = 'PUBLIC' AND table_name = 'SEED_VERSION'",
+                                                     Integer.class);
+        if ((tables == null) || (tables == 0))
+        {
+            return false;
+        }
+
+        List<String> recorded = jdbcTemplate.queryForList("SELECT checksum FROM seed_version",
+                                                          String.class);
+        return recorded.contains(checksum);
+    }
+
+    /**
+     * Records that the database now holds the given seed, replacing any seed recorded before
+     *
+     * @param checksum The checksum (String) of the seed
+     */
+    public void record(String checksum)
+    {
+        inNewTransaction().executeWithoutResult(status ->
+                                                {
+                                                    jdbcTemplate.execute(CREATE_TABLE);
+                                                    jdbcTemplate.update("DELETE FROM seed_version");
+                                                    jdbcTemplate.update("INSERT INTO seed_version (checksum, seeded_date) VALUES (?, ?)",
+                                                                        checksum,
+                                                                        new Timestamp(System.currentTimeMillis()));
+                                                });
+    }
+
+    /**
+     * Finds the snapshot of the given seed
+     *
+     * @param checksum The checksum (String) of the seed
+     * @return The snapshot file, or empty if snapshots are off or there is no snapshot of this seed
+     */
+    public Optional<Path> findSnapshot(String checksum)
+    {
+        return snapshotPath(checksum).filter(Files::isRegularFile);
+    }
+
+    /**
+     * Replaces everything in the database with the given snapshot in one bulk load.
+     * H2 scripts add the unique and foreign key constraints after the rows, so their indexes are built once
+     * rather than row by row, and the foreign keys are not checked again.
+     *
+     * @param snapshot The snapshot file to load
+     */
+    public void restore(Path snapshot)
+    {
+        inNewTransaction().executeWithoutResult(status ->
+                                                {
+                                                    jdbcTemplate.execute("DROP ALL OBJECTS");
+                                                    jdbcTemplate.execute("RUNSCRIPT FROM " + quote(snapshot) + " COMPRESSION GZIP");
+                                                });
+    }
+
+    /**
+     * Saves the database as the snapshot of the given seed, if snapshots are on and there is no snapshot yet.
+     * The script is written under a temporary name and then renamed, so a start that stops part way through
+     * never leaves half a snapshot behind.
+     *
+     * @param checksum The checksum (String) of the seed the database holds
+     */
+    public void snapshot(String checksum)
+    {
+        Optional<Path> target = snapshotPath(checksum);
+        if (!target.isPresent() || Files.isRegularFile(target.get()))
+        {
+            return;
+        }
+
+        Path snapshot = target.get();
+        Path partial = snapshot.resolveSibling(snapshot.getFileName() + ".part");
+        try
+        {
+            Files.createDirectories(snapshot.getParent());
+            jdbcTemplate.execute("SCRIPT TO " + quote(partial) + " COMPRESSION GZIP");
+            Files.move(partial,
+                       snapshot,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not save the seed snapshot " + snapshot,
+                                           e);
+        }
+    }
+
+    private Optional<Path> snapshotPath(String checksum)
+    {
+        if (snapshotDir.isEmpty())
+        {
+            return Optional.empty();
+        }
+        return Optional.of(Paths.get(snapshotDir,
+                                     "seed-" + checksum + ".sql.gz")
+                                   .toAbsolutePath());
+    }
+
+    private TransactionTemplate inNewTransaction()
+    {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction;
+    }
+
+    /**
+     * Quotes a file name as an SQL string literal. H2 does not take file names as parameters.
+     */
+    private static String quote(Path file)
+    {
+        return "'" + file.toString()
+                .replace("'",
+                         "''") + "'";
+    }
+}
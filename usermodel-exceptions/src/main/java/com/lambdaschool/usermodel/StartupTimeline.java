@@ -0,0 +1,338 @@
+package com.lambdaschool.usermodel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationContextInitializedEvent;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Logs where startup time goes, once the application is ready: a timeline of the startup phases and the beans
+ * that took longest to create. Turned on by startup.timeline.enabled.
+ * <p>
+ * Spring Boot 2.2 has no ApplicationStartup, so the phases are marked by the events Spring Boot publishes
+ * as it starts. Each phase is named for the work done since the mark before it. The beans are timed by a bean
+ * post processor, from just before each bean is instantiated until it is initialized. A bean's own time leaves
+ * out the time spent creating the beans it depends on.
+ * <p>
+ * Added to the SpringApplication in UserModelApplication.main, so it also hears the events sent before the
+ * context exists. It orders itself last, so the ready phase includes the other ApplicationReadyEvent listeners.
+ */
+public class StartupTimeline
+        implements ApplicationListener<ApplicationEvent>,
+                   Ordered
+{
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+    /**
+     * Number of beans listed in the report
+     */
+    private static final int SLOWEST_BEANS = 15;
+
+    /**
+     * When the JVM started, in epoch milliseconds
+     */
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean()
+            .getStartTime();
+
+    /**
+     * The phases marked so far
+     */
+    private final List<Mark> marks = new ArrayList<>();
+
+    /**
+     * Times the beans, once the context is prepared
+     */
+    private final BeanTimer beanTimer = new BeanTimer();
+
+    /**
+     * Holds the bean definitions, so the report can count the beans not created yet
+     */
+    private ConfigurableListableBeanFactory beanFactory;
+
+    /**
+     * Whether startup.timeline.enabled is set. Until the environment is ready, phases are marked just in case.
+     */
+    private boolean enabled = true;
+
+    @Override
+    public int getOrder()
+    {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+
+        if (event instanceof ApplicationStartingEvent)
+        {
+            mark("JVM start and main",
+                 event.getTimestamp());
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent)
+        {
+            enabled = ((ApplicationEnvironmentPreparedEvent) event).getEnvironment()
+                    .getProperty("startup.timeline.enabled",
+                                 Boolean.class,
+                                 false);
+            mark("environment and properties",
+                 event.getTimestamp());
+        } else if (event instanceof ApplicationContextInitializedEvent)
+        {
+            mark("context created",
+                 event.getTimestamp());
+        } else if (event instanceof ApplicationPreparedEvent)
+        {
+            beanFactory = ((ApplicationPreparedEvent) event).getApplicationContext()
+                    .getBeanFactory();
+            beanFactory.addBeanPostProcessor(beanTimer);
+            mark("application sources loaded",
+                 event.getTimestamp());
+        } else if (event instanceof ContextRefreshedEvent)
+        {
+            mark("scanning, configuration and singleton beans",
+                 event.getTimestamp());
+        } else if (event instanceof WebServerInitializedEvent)
+        {
+            mark("web server started",
+                 event.getTimestamp());
+        } else if (event instanceof ApplicationStartedEvent)
+        {
+            mark("context started",
+                 event.getTimestamp());
+        } else if (event instanceof ApplicationReadyEvent)
+        {
+            mark("command line runners, including seed data",
+                 event.getTimestamp());
+            mark("ready listeners, including the in memory indexes",
+                 System.currentTimeMillis());
+            beanTimer.stop();
+            logger.info(report());
+            enabled = false;
+        }
+    }
+
+    /**
+     * Marks the end of a phase. Only the first of each event is marked, so a second context, such as a
+     * separate management context, does not add phases.
+     */
+    private void mark(
+            String phase,
+            long timestamp)
+    {
+        for (Mark mark : marks)
+        {
+            if (mark.phase.equals(phase))
+            {
+                return;
+            }
+        }
+        marks.add(new Mark(phase,
+                           timestamp - jvmStart));
+    }
+
+    private String report()
+    {
+        StringBuilder report = new StringBuilder("Startup timeline, milliseconds since the JVM started:");
+        report.append(String.format("%n%8s %8s  %s",
+                                    "at",
+                                    "took",
+                                    "phase"));
+        long previous = 0;
+        for (Mark mark : marks)
+        {
+            report.append(String.format("%n%8d %8d  %s",
+                                        mark.at,
+                                        mark.at - previous,
+                                        mark.phase));
+            previous = mark.at;
+        }
+
+        List<BeanTiming> beans = beanTimer.created();
+        beans.sort(Comparator.comparingLong(BeanTiming::own)
+                           .reversed());
+        long own = 0;
+        for (BeanTiming bean : beans)
+        {
+            own += bean.own();
+        }
+        report.append(String.format("%n%d beans created, taking %d ms of their own. %d bean definitions not created yet. Slowest beans:",
+                                    beans.size(),
+                                    own / 1_000_000,
+                                    notCreated()));
+        report.append(String.format("%n%8s %8s  %s",
+                                    "own",
+                                    "total",
+                                    "bean"));
+        for (BeanTiming bean : beans.subList(0,
+                                             Math.min(SLOWEST_BEANS,
+                                                      beans.size())))
+        {
+            report.append(String.format("%n%8d %8d  %s",
+                                        bean.own() / 1_000_000,
+                                        bean.total / 1_000_000,
+                                        bean.name));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Counts the singleton beans that are defined but not created, which with lazy initialization are the
+     * beans nothing has needed yet
+     */
+    private long notCreated()
+    {
+        long count = 0;
+        for (String name : beanFactory.getBeanDefinitionNames())
+        {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.isSingleton() && !definition.isAbstract() && !beanFactory.containsSingleton(name))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The end of a phase
+     */
+    private static final class Mark
+    {
+        private final String phase;
+
+        private final long at;
+
+        private Mark(
+                String phase,
+                long at)
+        {
+            this.phase = phase;
+            this.at = at;
+        }
+    }
+
+    /**
+     * How long one bean took to create, in nanoseconds
+     */
+    private static final class BeanTiming
+    {
+        private final String name;
+
+        private final long start;
+
+        private long total;
+
+        private long dependencies;
+
+        private BeanTiming(
+                String name,
+                long start)
+        {
+            this.name = name;
+            this.start = start;
+        }
+
+        private long own()
+        {
+            return total - dependencies;
+        }
+    }
+
+    /**
+     * Times each bean from before instantiation to after initialization. Beans a bean depends on are created
+     * inside that span, on the same thread, so each thread keeps a stack of the beans it is creating.
+     */
+    private static final class BeanTimer
+            implements InstantiationAwareBeanPostProcessor
+    {
+        private final ThreadLocal<Deque<BeanTiming>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+
+        private final List<BeanTiming> created = new ArrayList<>();
+
+        private volatile boolean stopped;
+
+        @Override
+        public Object postProcessBeforeInstantiation(
+                Class<?> beanClass,
+                String beanName)
+        {
+            if (!stopped)
+            {
+                creating.get()
+                        .push(new BeanTiming(beanName,
+                                             System.nanoTime()));
+            }
+            return null;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(
+                Object bean,
+                String beanName)
+        {
+            Deque<BeanTiming> stack = creating.get();
+            // drops any bean above this one whose creation failed, and ignores beans it never saw start,
+            // such as the objects made by factory beans
+            for (Iterator<BeanTiming> beans = stack.iterator(); beans.hasNext(); )
+            {
+                if (beans.next().name.equals(beanName))
+                {
+                    BeanTiming timing;
+                    do
+                    {
+                        timing = stack.pop();
+                    } while (!timing.name.equals(beanName));
+
+                    timing.total = System.nanoTime() - timing.start;
+                    if (!stack.isEmpty())
+                    {
+                        stack.peek().dependencies += timing.total;
+                    }
+                    synchronized (created)
+                    {
+                        created.add(timing);
+                    }
+                    break;
+                }
+            }
+            return bean;
+        }
+
+        private void stop()
+        {
+            stopped = true;
+        }
+
+        private List<BeanTiming> created()
+        {
+            synchronized (created)
+            {
+                return new ArrayList<>(created);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.lambdaschool.usermodel;
+
+import com.github.javafaker.Faker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Seeds a large number of generated users for capacity testing. Used by SeedData when seed.users is above zero.
+ * <p>
+ * The users are written straight to the tables with JDBC batches, skipping the entities, the caches and the
+ * in memory indexes. The indexes are built from the tables once the application is ready, so they still
+ * see every user. The users are split into chunks and the chunks are written in parallel, each chunk in a
+ * transaction of its own.
+ * <p>
+ * Everything about a user, its names, emails and roles, comes from a random generator seeded with seed.random-seed
+ * and the number of the user. So the same settings always give the same data, however the chunks are scheduled.
+ */
+@Component
+public class SyntheticSeedData
+{
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticSeedData.class);
+
+    /**
+     * Most extra emails a user is given besides its primary email
+     */
+    private static final int MAX_EMAILS = 3;
+
+    /**
+     * How many first and how many last names the usernames are made from
+     */
+    private static final int NAME_POOL_SIZE = 1000;
+
+    private static final String[] DOMAINS = {"email.local", "mymail.local", "school.lambda"};
+
+    private static final String INSERT_USER = "INSERT INTO users (userid, username, password, primaryemail, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_USEREMAIL = "INSERT INTO useremails (useremailid, useremail, userid, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_USERROLE = "INSERT INTO userroles (userid, roleid, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Who the seeded rows are recorded as created and last modified by. The same as UserAuditing.
+     */
+    private static final String AUDITOR = "SYSTEM";
+
+    /**
+     * Writes the rows
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Gives each chunk its own transaction
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Seeds the random generators, default 42
+     */
+    @Value("${seed.random-seed:42}")
+    private long randomSeed;
+
+    /**
+     * Number of users written in each transaction, default 10000
+     */
+    @Value("${seed.chunk-size:10000}")
+    private int chunkSize;
+
+    /**
+     * Number of chunks written at once. Defaults to the number of processors. Each needs its own database connection.
+     */
+    @Value("${seed.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int threads;
+
+    /**
+     * How many ids each call to a sequence reserves. The ids we reserve are a whole number of these blocks.
+     */
+    @Value("${spring.jpa.properties.usermodel.id.allocation_size:50}")
+    private int allocationSize;
+
+    /**
+     * Writes the given number of users with their emails and roles. Every user is given the user role,
+     * about one in ten the admin role and about one in four the data role.
+     * <p>
+     * The roles must already be committed, as the chunks are written on other connections.
+     *
+     * @param users       The number (int) of users to write
+     * @param adminRoleid The primary key (long) of the admin role
+     * @param userRoleid  The primary key (long) of the user role
+     * @param dataRoleid  The primary key (long) of the data role
+     */
+    public void seed(
+            int users,
+            long adminRoleid,
+            long userRoleid,
+            long dataRoleid)
+    {
+        long start = System.nanoTime();
+
+        // user i is given userid firstUserid + i and up to MAX_EMAILS useremailids from firstUseremailid + i * MAX_EMAILS
+        long firstUserid = reserve("users_seq",
+                                   users);
+        long firstUseremailid = reserve("useremails_seq",
+                                        (long) users * MAX_EMAILS);
+        Names names = new Names(randomSeed);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+                                                                         threads));
+        try
+        {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < users; from += chunkSize)
+            {
+                int first = from;
+                int last = Math.min(users,
+                                    from + chunkSize);
+                chunks.add(executor.submit(() -> transaction.executeWithoutResult(status -> writeChunk(first,
+                                                                                                       last,
+                                                                                                       firstUserid,
+                                                                                                       firstUseremailid,
+                                                                                                       new long[]{adminRoleid, userRoleid, dataRoleid},
+                                                                                                       names,
+                                                                                                       now))));
+            }
+            for (Future<?> chunk : chunks)
+            {
+                chunk.get();
+            }
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+            throw new IllegalStateException("Seeding synthetic users was interrupted",
+                                            e);
+        } catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Seeding synthetic users failed",
+                                            e.getCause());
+        } finally
+        {
+            executor.shutdownNow();
+        }
+
+        logger.info("Seeded " + users + " synthetic users in " + ((System.nanoTime() - start) / 1_000_000) + " ms");
+    }
+
+    /**
+     * Reserves a run of ids from a sequence by moving the sequence past them. Ids Hibernate already holds in memory
+     * come from earlier calls to the sequence, so they are never in the run.
+     *
+     * @param sequence The name (String) of the sequence
+     * @param count    The number (long) of ids needed
+     * @return The first id (long) of the run
+     */
+    private long reserve(
+            String sequence,
+            long count)
+    {
+        long first = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence,
+                                                 Long.class);
+        long blocks = (count + allocationSize - 1) / allocationSize;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (first + Math.max(1,
+                                                                                                 blocks) * allocationSize));
+        return first;
+    }
+
+    /**
+     * Writes users first (inclusive) to last (exclusive) in the current transaction
+     */
+    private void writeChunk(
+            int first,
+            int last,
+            long firstUserid,
+            long firstUseremailid,
+            long[] roleids,
+            Names names,
+            Timestamp now)
+    {
+        List<Object[]> users = new ArrayList<>(last - first);
+        List<Object[]> useremails = new ArrayList<>(last - first);
+        List<Object[]> userroles = new ArrayList<>((last - first) * 2);
+
+        for (int i = first; i < last; i++)
+        {
+            SplittableRandom random = new SplittableRandom(randomSeed * 31 + i);
+            long userid = firstUserid + i;
+            // the number makes the username, and so the primary email, unique
+            String username = names.first[random.nextInt(NAME_POOL_SIZE)] + "." + names.last[random.nextInt(NAME_POOL_SIZE)] + i;
+
+            users.add(new Object[]{userid, username, "password", username + "@" + DOMAINS[random.nextInt(DOMAINS.length)],
+                    AUDITOR, now, AUDITOR, now});
+
+            int emails = random.nextInt(MAX_EMAILS + 1);
+            for (int e = 0; e < emails; e++)
+            {
+                useremails.add(new Object[]{firstUseremailid + (long) i * MAX_EMAILS + e, username + "." + e + "@" + DOMAINS[e],
+                        userid, AUDITOR, now, AUDITOR, now});
+            }
+
+            userroles.add(new Object[]{userid, roleids[1], AUDITOR, now, AUDITOR, now});
+            if (random.nextInt(10) == 0)
+            {
+                userroles.add(new Object[]{userid, roleids[0], AUDITOR, now, AUDITOR, now});
+            }
+            if (random.nextInt(4) == 0)
+            {
+                userroles.add(new Object[]{userid, roleids[2], AUDITOR, now, AUDITOR, now});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_USER,
+                                 users);
+        jdbcTemplate.batchUpdate(INSERT_USEREMAIL,
+                                 useremails);
+        jdbcTemplate.batchUpdate(INSERT_USERROLE,
+                                 userroles);
+    }
+
+    /**
+     * The first and last names usernames are made from. JavaFaker is far too slow to call for every user,
+     * so it is only used to fill these pools, from the same seed.
+     */
+    private static final class Names
+    {
+        private final String[] first = new String[NAME_POOL_SIZE];
+
+        private final String[] last = new String[NAME_POOL_SIZE];
+
+        private Names(long seed)
+        {
+            Faker nameFaker = new Faker(new Locale("en-US"),
+                                        new Random(seed));
+            for (int i = 0; i < NAME_POOL_SIZE; i++)
+            {
+                first[i] = letters(nameFaker.name()
+                                           .firstName());
+                last[i] = letters(nameFaker.name()
+                                          .lastName());
+            }
+        }
+
+        /**
+         * Lower cases the name and drops anything but letters, such as the apostrophe in O'Keefe
+         */
+        private static String letters(String name)
+        {
+            return name.toLowerCase(Locale.ROOT)
+                    .replaceAll("[^a-z]",
+                                "");
+        }
+    }
+}
@@ -67,7 +67,8 @@ public class UserModelApplication
         readFromEnvFile();
 
         // now run the real application!
-        SpringApplication.run(UserModelApplication.class,
-                              args);
+        SpringApplication application = new SpringApplication(UserModelApplication.class);
+        application.addListeners(new StartupTimeline());
+        application.run(args);
     }
 }
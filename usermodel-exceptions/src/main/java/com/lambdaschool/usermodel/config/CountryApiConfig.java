@@ -0,0 +1,232 @@
+package com.lambdaschool.usermodel.config;
+
+import com.lambdaschool.usermodel.exceptions.BadRequestException;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures the client used to call the remote countries API.
+ * <p>
+ * Connections are pooled and kept alive between calls, so repeated lookups skip the TCP and TLS handshakes.
+ * Every call is bounded by the configured timeouts.
+ * <p>
+ * All calls pass through one circuit breaker. Once too many calls in the recent window fail or are slow, it opens
+ * and calls are refused at once. After a while it lets a few calls through, and closes again if they go well.
+ * The blocking calls also pass through a bulkhead, so they can only ever hold a few of the request threads.
+ */
+@Configuration
+public class CountryApiConfig
+{
+    /**
+     * Most connections open to the countries API at once, default 20
+     */
+    @Value("${country.api.max-connections:20}")
+    private int maxConnections;
+
+    /**
+     * Milliseconds to wait for a TCP connection to the countries API, default 2000
+     */
+    @Value("${country.api.connect-timeout-ms:2000}")
+    private int connectTimeout;
+
+    /**
+     * Milliseconds to wait for the countries API to send data once connected, default 5000
+     */
+    @Value("${country.api.read-timeout-ms:5000}")
+    private int readTimeout;
+
+    /**
+     * Milliseconds to wait for a free connection from the pool, default 1000
+     */
+    @Value("${country.api.pool-timeout-ms:1000}")
+    private int poolTimeout;
+
+    /**
+     * Seconds an unused pooled connection is kept before being closed, default 30
+     */
+    @Value("${country.api.idle-seconds:30}")
+    private long idleSeconds;
+
+    /**
+     * Percentage of failed calls in the window that opens the circuit breaker, default 50
+     */
+    @Value("${country.breaker.failure-rate:50}")
+    private float failureRate;
+
+    /**
+     * Percentage of slow calls in the window that opens the circuit breaker, default 50
+     */
+    @Value("${country.breaker.slow-call-rate:50}")
+    private float slowCallRate;
+
+    /**
+     * Milliseconds after which a call counts as slow, default 2000
+     */
+    @Value("${country.breaker.slow-call-ms:2000}")
+    private long slowCallMillis;
+
+    /**
+     * Number of recent calls the rates are worked out over, default 20
+     */
+    @Value("${country.breaker.window-size:20}")
+    private int windowSize;
+
+    /**
+     * Fewest calls in the window before the rates are acted on, default 10
+     */
+    @Value("${country.breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    /**
+     * Seconds the circuit breaker stays open before letting trial calls through, default 30
+     */
+    @Value("${country.breaker.open-seconds:30}")
+    private long openSeconds;
+
+    /**
+     * Number of trial calls let through while half open, default 3
+     */
+    @Value("${country.breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    /**
+     * Most blocking calls to the countries API at once, default 10
+     */
+    @Value("${country.bulkhead.max-calls:10}")
+    private int bulkheadMaxCalls;
+
+    /**
+     * The pooled HTTP client for the countries API. Closed, with its connections, when the application stops.
+     *
+     * @return the shared HTTP client
+     */
+    @Bean
+    public CloseableHttpClient countryHttpClient()
+    {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        // every call goes to the same host so it may use the whole pool
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(poolTimeout)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleSeconds,
+                                      TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * The non blocking HTTP client used by the asynchronous country lookups. A call waiting on the countries API
+     * holds no thread; the client's own threads pick the response up when it arrives.
+     *
+     * @return the shared non blocking HTTP client
+     */
+    @Bean
+    public HttpClient countryAsyncHttpClient()
+    {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * The circuit breaker shared by every call to the countries API. A country code the countries API does not
+     * know, or refuses as malformed, is its answer to the caller rather than a sign of trouble, so it is ignored:
+     * a client sending bad codes cannot open the breaker for everyone. Only 5xx answers, timeouts and unreachable
+     * hosts count as failures.
+     * Its state and counts are published as resilience4j.circuitbreaker metrics.
+     *
+     * @param meterRegistry where the circuit breaker metrics are published
+     * @return the circuit breaker
+     */
+    @Bean
+    public CircuitBreaker countryCircuitBreaker(MeterRegistry meterRegistry)
+    {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRate)
+                .slowCallRateThreshold(slowCallRate)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMillis))
+                .waitDurationInOpenState(Duration.ofSeconds(openSeconds))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .ignoreExceptions(ResourceNotFoundException.class,
+                                  BadRequestException.class)
+                .build();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry)
+                .bindTo(meterRegistry);
+        return registry.circuitBreaker("countryApi");
+    }
+
+    /**
+     * The bulkhead for the blocking calls to the countries API. A call finding it full is refused at once
+     * rather than waiting for room.
+     *
+     * @return the bulkhead
+     */
+    @Bean
+    public Bulkhead countryBulkhead()
+    {
+        return Bulkhead.of("countryApi",
+                           BulkheadConfig.custom()
+                                   .maxConcurrentCalls(bulkheadMaxCalls)
+                                   .maxWaitDuration(Duration.ZERO)
+                                   .build());
+    }
+
+    /**
+     * The RestTemplate used to call the countries API, built once and shared by all requests
+     *
+     * @param countryHttpClient the pooled HTTP client the calls go through
+     * @return the shared RestTemplate
+     */
+    @Bean
+    public RestTemplate countryRestTemplate(
+            @Qualifier("countryHttpClient")
+                    CloseableHttpClient countryHttpClient)
+    {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(countryHttpClient));
+
+        // the countries API does not always send a JSON content type, so read JSON whatever the type
+        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+        converter.setSupportedMediaTypes(Collections.singletonList(MediaType.ALL));
+        restTemplate.getMessageConverters()
+                .add(converter);
+        return restTemplate;
+    }
+}
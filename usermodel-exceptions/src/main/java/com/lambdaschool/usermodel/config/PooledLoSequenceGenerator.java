@@ -0,0 +1,60 @@
+package com.lambdaschool.usermodel.config;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Generates primary keys from a database sequence using the pooled-lo optimizer.
+ * <p>
+ * Each call to the sequence reserves a block of allocation size ids, starting at the value returned.
+ * The ids in that block are then handed out from memory, so only one insert in every block needs a trip
+ * to the sequence.
+ * <p>
+ * The block size is read from the Hibernate setting usermodel.id.allocation_size, set in application.properties as
+ * spring.jpa.properties.usermodel.id.allocation_size. If it is not set, the increment_size parameter of the
+ * generator is used.
+ */
+public class PooledLoSequenceGenerator
+        extends SequenceStyleGenerator
+{
+    /**
+     * The Hibernate setting holding the number of ids reserved with each call to a sequence
+     */
+    public static final String ALLOCATION_SIZE_SETTING = "usermodel.id.allocation_size";
+
+    /**
+     * Sets the block size and the pooled-lo optimizer before the sequence is configured
+     *
+     * @param type            The type of the primary key
+     * @param params          The parameters given to the generator in the entity
+     * @param serviceRegistry Access to the Hibernate settings
+     * @throws MappingException If the sequence cannot be configured
+     */
+    @Override
+    public void configure(
+            Type type,
+            Properties params,
+            ServiceRegistry serviceRegistry) throws
+            MappingException
+    {
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .get(ALLOCATION_SIZE_SETTING);
+        if (allocationSize != null)
+        {
+            params.setProperty(INCREMENT_PARAM,
+                               allocationSize.toString());
+        }
+        params.setProperty(OPT_PARAM,
+                           "pooled-lo");
+
+        super.configure(type,
+                        params,
+                        serviceRegistry);
+    }
+}
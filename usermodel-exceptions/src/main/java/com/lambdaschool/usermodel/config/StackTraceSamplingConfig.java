@@ -0,0 +1,33 @@
+package com.lambdaschool.usermodel.config;
+
+import com.lambdaschool.usermodel.exceptions.StackTraceSampling;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Applies the configured stack trace sample rate to our own exceptions.
+ * Those exceptions are created with new rather than by Spring, so the rate is set on StackTraceSampling at startup.
+ * Nothing depends on this bean, so it is never lazy, or with lazy initialization it would never be created.
+ */
+@Configuration
+@Lazy(false)
+public class StackTraceSamplingConfig
+{
+    /**
+     * The fraction of ResourceNotFoundExceptions and ResourceFoundExceptions that capture a stack trace, default all.
+     */
+    @Value("${exceptions.stacktrace.sample-rate:1.0}")
+    private double sampleRate;
+
+    /**
+     * Hands the configured rate to StackTraceSampling
+     */
+    @PostConstruct
+    public void applySampleRate()
+    {
+        StackTraceSampling.setSampleRate(sampleRate);
+    }
+}
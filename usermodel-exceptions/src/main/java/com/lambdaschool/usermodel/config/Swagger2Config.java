@@ -1,5 +1,6 @@
 package com.lambdaschool.usermodel.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -14,9 +15,10 @@ import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 /**
- * Configures the default Swagger Documentation
+ * Configures the default Swagger Documentation. Turned off by swagger.enabled=false.
  */
 @Configuration
+@ConditionalOnExpression("${swagger.enabled:true}")
 @EnableSwagger2
 @Import(BeanValidatorPluginsConfiguration.class)
 public class Swagger2Config
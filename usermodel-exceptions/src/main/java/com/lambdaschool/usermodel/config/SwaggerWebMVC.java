@@ -1,5 +1,6 @@
 package com.lambdaschool.usermodel.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -9,6 +10,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * However, we do need some web page generate done for Swagger, so we do that here.
  */
 @Configuration
+@ConditionalOnExpression("${swagger.enabled:true}")
 public class SwaggerWebMVC
         implements WebMvcConfigurer
 {
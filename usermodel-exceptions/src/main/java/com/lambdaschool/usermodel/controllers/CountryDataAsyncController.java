@@ -0,0 +1,50 @@
+package com.lambdaschool.usermodel.controllers;
+
+import com.lambdaschool.usermodel.models.CountryData;
+import com.lambdaschool.usermodel.services.CountryDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The asynchronous entry point to the Country Data API
+ * <br><a href="https://restcountries.eu">https://restcountries.eu</a>
+ * <p>
+ * The request thread is handed back to Tomcat as soon as the call to the countries API has started,
+ * so a slow countries API cannot tie up the threads that also serve the users and roles endpoints.
+ */
+@RestController
+@RequestMapping("/otherapis/async")
+public class CountryDataAsyncController
+{
+    /**
+     * Gets country data from the remote API, through a cache
+     */
+    @Autowired
+    CountryDataService countryDataService;
+
+    /**
+     * Returns the data for the given country, loading it from the remote API if it is not already held
+     * <br>Example: <a href="http://localhost:2019/otherapis/async/countrydata/usa">http://localhost:2019/otherapis/async/countrydata/usa</a>
+     *
+     * @param countrycode The country code (String) of the country you seek. For example usa, mex, ca, fin
+     * @return A future completed with the JSON object of the country data
+     * @see CountryDataService#findByCodeAsync(String) CountryDataService.findByCodeAsync(String)
+     */
+    @GetMapping(value = "/countrydata/{countrycode}",
+            produces = "application/json")
+    public CompletableFuture<ResponseEntity<CountryData>> getCountryData(
+        @PathVariable
+            String countrycode)
+    {
+        return countryDataService.findByCodeAsync(countrycode)
+                .thenApply(countryData -> new ResponseEntity<>(countryData,
+                                                               HttpStatus.OK));
+    }
+}
@@ -1,45 +1,71 @@
 package com.lambdaschool.usermodel.controllers;
 
+import com.lambdaschool.usermodel.exceptions.BadRequestException;
 import com.lambdaschool.usermodel.models.CountryData;
-import com.lambdaschool.usermodel.services.HelperFunctionsImpl;
+import com.lambdaschool.usermodel.services.CountryDataService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
-import java.util.Collections;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * The entry point to work with the Country Data API
  * <br><a href="https://restcountries.eu">https://restcountries.eu</a>
+ * Validated so the number of codes in a prefetch is checked as well.
  */
+@Validated
 @RestController
 @RequestMapping("/otherapis")
 public class CountryDataController
 {
     /**
-     * Creates the object that is needed to do a client side Rest API call.
-     * We are the client getting data from a remote API.
+     * Gets country data from the remote API, through a cache
      */
-    private RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    CountryDataService countryDataService;
 
     /**
-     * Allows this class to use the Helper Function class
+     * Newline delimited JSON, the type of the prefetch stream
      */
-    @Autowired
-    HelperFunctionsImpl helperFunctions;
+    private static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * The most country codes one prefetch may ask for, a little over the number of countries there are
+     */
+    private static final int MAX_PREFETCH_SIZE = 300;
+
+    /**
+     * Milliseconds a prefetch stream may stay open, default 60000
+     */
+    @Value("${country.prefetch.timeout-ms:60000}")
+    private long prefetchTimeout;
+
+    /**
+     * What currentcountrydata reports before any country has been loaded
+     */
+    private static final CountryData EMPTY_COUNTRY_DATA = new CountryData(null,
+                                                                          null,
+                                                                          null,
+                                                                          0,
+                                                                          null,
+                                                                          null);
 
     /**
-     * Populates a public field from the main class. That field contains data from the last queried country
+     * Loads the data for a country and remembers it as the last queried country
      * <br>Example: <a href="http://localhost:2019/otherapis/populatecountrydata/usa">http://localhost:2019/otherapis/populatecountrydata/usa</a>
      *
      * @param countrycode The country code (String) of the country you seek. For example usa, mex, ca, fin
@@ -50,28 +76,8 @@ public class CountryDataController
         @PathVariable
             String countrycode)
     {
-        // we need to tell our RestTemplate what format to expect
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        // a couple of common formats
-        // converter.setSupportedMediaTypes(Collections.singletonList(MediaType.TEXT_HTML));
-        // converter.setSupportedMediaTypes(Collections.singletonList(MediaType.APPLICATION_JSON));
-        // or we can accept all formats! Easiest but least secure
-        converter.setSupportedMediaTypes(Collections.singletonList(MediaType.ALL));
-        restTemplate.getMessageConverters().add(converter);
-
-        // create the url to access the country data
-        String requestURL = "https://restcountries.eu/rest/v2/alpha/" + countrycode;
-        // create the responseType expected. Notice the CountryData is the data type we are expecting back from the API!
-        ParameterizedTypeReference<CountryData> responseType = new ParameterizedTypeReference<>()
-        {
-        };
-        // create the response entity. do the get and get back information
-        ResponseEntity<CountryData> responseEntity = restTemplate.exchange(requestURL,
-                                                                           HttpMethod.GET,
-                                                                           null,
-                                                                           responseType);
-        // now that we have our data, put it into our list!
-        helperFunctions.ourCountryData = responseEntity.getBody();
+        // get the data, from the cache if we have asked for this country recently, otherwise from the remote API
+        countryDataService.populate(countrycode);
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
@@ -79,12 +85,97 @@ public class CountryDataController
      * Returns the data for the last country's data that got loaded.
      * <br>Example: <a href="http://localhost:2019/otherapis/currentcountrydata">http://localhost:2019/otherapis/currentcountrydata</a>
      *
-     * @return The current country data
+     * @return The current country data, or an empty object if no country has been loaded yet
      */
     @GetMapping("/currentcountrydata")
     public ResponseEntity<?> listInfoForCountryData()
     {
-        return new ResponseEntity<>(helperFunctions.ourCountryData,
+        return new ResponseEntity<>(countryDataService.findLatest()
+                                            .orElse(EMPTY_COUNTRY_DATA),
+            HttpStatus.OK);
+    }
+
+    /**
+     * Returns the data for the given country, loading it from the remote API if it is not already held
+     * <br>Example: <a href="http://localhost:2019/otherapis/countrydata/usa">http://localhost:2019/otherapis/countrydata/usa</a>
+     *
+     * @param countrycode The country code (String) of the country you seek. For example usa, mex, ca, fin
+     * @return JSON object of the country data
+     * @see CountryDataService#findByCode(String) CountryDataService.findByCode(String)
+     */
+    @GetMapping(value = "/countrydata/{countrycode}",
+            produces = "application/json")
+    public ResponseEntity<?> getCountryData(
+        @PathVariable
+            String countrycode)
+    {
+        return new ResponseEntity<>(countryDataService.findByCode(countrycode),
+            HttpStatus.OK);
+    }
+
+    /**
+     * Loads a list of countries into the cache, several at a time. Codes already cached are not fetched again.
+     * The outcome for each code is sent as soon as it is known, one JSON object per line, in the order they complete.
+     * <br>Example: <a href="http://localhost:2019/otherapis/countrydata/prefetch">http://localhost:2019/otherapis/countrydata/prefetch</a>
+     * with the body ["usa", "mex", "can", "fin"]
+     *
+     * @param countrycodes The country codes (String) to load. An empty list, or one of more than MAX_PREFETCH_SIZE
+     *                     codes, is rejected with Bad Request.
+     * @return A stream of CountryPrefetch, one per distinct country code
+     * @see CountryDataService#prefetch(java.util.Collection, java.util.function.Consumer) CountryDataService.prefetch(Collection, Consumer)
+     */
+    @PostMapping(value = "/countrydata/prefetch",
+            consumes = "application/json",
+            produces = NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> prefetchCountryData(
+            @Size(max = MAX_PREFETCH_SIZE)
+            @RequestBody
+                    List<String> countrycodes)
+    {
+        if (countrycodes.isEmpty())
+        {
+            throw new BadRequestException("No country codes given!");
+        }
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(prefetchTimeout);
+        countryDataService.prefetch(countrycodes,
+                                    countryPrefetch ->
+                                    {
+                                        // hold the emitter so another code's line cannot land between the object and its newline
+                                        synchronized (emitter)
+                                        {
+                                            try
+                                            {
+                                                emitter.send(countryPrefetch,
+                                                             MediaType.APPLICATION_JSON);
+                                                emitter.send("\n",
+                                                             MediaType.TEXT_PLAIN);
+                                            } catch (IOException | IllegalStateException e)
+                                            {
+                                                // the client has gone or the stream timed out; the prefetch carries on regardless
+                                                emitter.completeWithError(e);
+                                            }
+                                        }
+                                    })
+                .thenRun(emitter::complete);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(emitter);
+    }
+
+    /**
+     * Reports how well the country data cache is doing
+     * <br>Example: <a href="http://localhost:2019/otherapis/cache/stats">http://localhost:2019/otherapis/cache/stats</a>
+     *
+     * @return JSON object of cache statistics
+     * @see CountryDataService#getStatistics() CountryDataService.getStatistics()
+     */
+    @GetMapping(value = "/cache/stats",
+            produces = "application/json")
+    public ResponseEntity<?> getCountryCacheStatistics()
+    {
+        return new ResponseEntity<>(countryDataService.getStatistics(),
             HttpStatus.OK);
     }
 
@@ -1,6 +1,7 @@
 package com.lambdaschool.usermodel.controllers;
 
 import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.services.RoleMembershipIndex;
 import com.lambdaschool.usermodel.services.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -37,6 +39,12 @@ public class RolesController
     @Autowired
     RoleService roleService;
 
+    /**
+     * Answers role membership questions from memory, without loading users or roles
+     */
+    @Autowired
+    RoleMembershipIndex roleMembershipIndex;
+
     /**
      * List of all roles
      * <br>Example: <a href="http://localhost:2019/roles/roles">http://localhost:2019/roles/roles</a>
@@ -144,4 +152,118 @@ public class RolesController
                                      newRole);
         return new ResponseEntity<>(HttpStatus.OK);
     }
+
+    /**
+     * The userids of all users holding the given role
+     * <br>Example: <a href="http://localhost:2019/roles/role/1/users">http://localhost:2019/roles/role/1/users</a>
+     *
+     * @param roleid The primary key (long) of the role
+     * @return JSON list of userids, in ascending order
+     * @see RoleMembershipIndex#findUseridsInRole(long) RoleMembershipIndex.findUseridsInRole(long)
+     */
+    @GetMapping(value = "/role/{roleid}/users",
+            produces = "application/json")
+    public ResponseEntity<?> listRoleMembers(
+            @PathVariable
+                    long roleid)
+    {
+        List<Long> userids = roleMembershipIndex.findUseridsInRole(roleid);
+        return new ResponseEntity<>(userids,
+                                    HttpStatus.OK);
+    }
+
+    /**
+     * The number of users holding the given role
+     * <br>Example: <a href="http://localhost:2019/roles/role/1/users/count">http://localhost:2019/roles/role/1/users/count</a>
+     *
+     * @param roleid The primary key (long) of the role
+     * @return JSON number of users holding the role
+     * @see RoleMembershipIndex#countUsersInRole(long) RoleMembershipIndex.countUsersInRole(long)
+     */
+    @GetMapping(value = "/role/{roleid}/users/count",
+            produces = "application/json")
+    public ResponseEntity<?> countRoleMembers(
+            @PathVariable
+                    long roleid)
+    {
+        long count = roleMembershipIndex.countUsersInRole(roleid);
+        return new ResponseEntity<>(count,
+                                    HttpStatus.OK);
+    }
+
+    /**
+     * The userids of all users holding every one of the given roles
+     * <br>Example: <a href="http://localhost:2019/roles/users/all?roleids=1,3">http://localhost:2019/roles/users/all?roleids=1,3</a>
+     *
+     * @param roleids The primary keys (Long) of the roles, comma separated
+     * @return JSON list of userids, in ascending order
+     * @see RoleMembershipIndex#findUseridsInAllRoles(java.util.Collection) RoleMembershipIndex.findUseridsInAllRoles(Collection)
+     */
+    @GetMapping(value = "/users/all",
+            produces = "application/json")
+    public ResponseEntity<?> listUsersInAllRoles(
+            @RequestParam
+                    List<Long> roleids)
+    {
+        List<Long> userids = roleMembershipIndex.findUseridsInAllRoles(roleids);
+        return new ResponseEntity<>(userids,
+                                    HttpStatus.OK);
+    }
+
+    /**
+     * The number of users holding every one of the given roles
+     * <br>Example: <a href="http://localhost:2019/roles/users/all/count?roleids=1,3">http://localhost:2019/roles/users/all/count?roleids=1,3</a>
+     *
+     * @param roleids The primary keys (Long) of the roles, comma separated
+     * @return JSON number of users holding all the roles
+     * @see RoleMembershipIndex#countUsersInAllRoles(java.util.Collection) RoleMembershipIndex.countUsersInAllRoles(Collection)
+     */
+    @GetMapping(value = "/users/all/count",
+            produces = "application/json")
+    public ResponseEntity<?> countUsersInAllRoles(
+            @RequestParam
+                    List<Long> roleids)
+    {
+        long count = roleMembershipIndex.countUsersInAllRoles(roleids);
+        return new ResponseEntity<>(count,
+                                    HttpStatus.OK);
+    }
+
+    /**
+     * The userids of all users holding at least one of the given roles
+     * <br>Example: <a href="http://localhost:2019/roles/users/any?roleids=1,3">http://localhost:2019/roles/users/any?roleids=1,3</a>
+     *
+     * @param roleids The primary keys (Long) of the roles, comma separated
+     * @return JSON list of userids, in ascending order
+     * @see RoleMembershipIndex#findUseridsInAnyRole(java.util.Collection) RoleMembershipIndex.findUseridsInAnyRole(Collection)
+     */
+    @GetMapping(value = "/users/any",
+            produces = "application/json")
+    public ResponseEntity<?> listUsersInAnyRole(
+            @RequestParam
+                    List<Long> roleids)
+    {
+        List<Long> userids = roleMembershipIndex.findUseridsInAnyRole(roleids);
+        return new ResponseEntity<>(userids,
+                                    HttpStatus.OK);
+    }
+
+    /**
+     * The number of users holding at least one of the given roles
+     * <br>Example: <a href="http://localhost:2019/roles/users/any/count?roleids=1,3">http://localhost:2019/roles/users/any/count?roleids=1,3</a>
+     *
+     * @param roleids The primary keys (Long) of the roles, comma separated
+     * @return JSON number of users holding any of the roles
+     * @see RoleMembershipIndex#countUsersInAnyRole(java.util.Collection) RoleMembershipIndex.countUsersInAnyRole(Collection)
+     */
+    @GetMapping(value = "/users/any/count",
+            produces = "application/json")
+    public ResponseEntity<?> countUsersInAnyRole(
+            @RequestParam
+                    List<Long> roleids)
+    {
+        long count = roleMembershipIndex.countUsersInAnyRole(roleids);
+        return new ResponseEntity<>(count,
+                                    HttpStatus.OK);
+    }
 }
@@ -1,11 +1,17 @@
 package com.lambdaschool.usermodel.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lambdaschool.usermodel.exceptions.BadRequestException;
 import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.services.UserCache;
 import com.lambdaschool.usermodel.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -14,17 +20,28 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 /**
- * The entry point for clients to access user data
+ * The entry point for clients to access user data.
+ * Validated so constraints on method parameters, such as the size of a batch, are checked as well.
  */
+@Validated
 @RestController
 @RequestMapping("/users")
 public class UserController
@@ -36,21 +53,208 @@ public class UserController
     private UserService userService;
 
     /**
-     * Returns a list of all users
+     * Using the User cache to report how well user lookups are cached
+     */
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * The application's configured JSON mapper, used when writing users directly to the response
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * The media type for newline delimited JSON - one JSON object per line
+     */
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    /**
+     * How many exported users are written before the response is flushed to the client
+     */
+    private static final int EXPORT_FLUSH_EVERY = 100;
+
+    /**
+     * The number of users returned in one page when the client asks for a page but does not give a limit
+     */
+    private static final int DEFAULT_PAGE_LIMIT = 25;
+
+    /**
+     * The largest number of users that can be returned in one page
+     */
+    private static final int MAX_PAGE_LIMIT = 500;
+
+    /**
+     * Prefix placed in front of the userid before it is encoded into a cursor
+     */
+    private static final String CURSOR_PREFIX = "u:";
+
+    /**
+     * The largest number of users that can be created in one batch
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Returns a list of all users.
+     * If either limit or after is given, only one page of users is returned, ordered by userid.
+     * A Link header with rel="next" points to the following page when more users may exist.
      * <br>Example: <a href="http://localhost:2019/users/users">http://localhost:2019/users/users</a>
+     * <br>Example: <a href="http://localhost:2019/users/users?limit=2">http://localhost:2019/users/users?limit=2</a>
      *
-     * @return JSON list of all users with a status of OK
+     * @param limit The maximum number of users to return in one page. Optional
+     * @param after The opaque cursor from the Link header of the previous page. Optional. A cursor this application
+     *              did not hand out is answered with Bad Request.
+     * @return JSON list of all users, or one page of users, with a status of OK
      * @see UserService#findAll() UserService.findAll()
+     * @see UserService#findAllAfter(long, int) UserService.findAllAfter(long, int)
      */
     @GetMapping(value = "/users",
             produces = "application/json")
-    public ResponseEntity<?> listAllUsers()
+    public ResponseEntity<?> listAllUsers(
+            @RequestParam(required = false)
+                    Integer limit,
+            @RequestParam(required = false)
+                    String after)
     {
-        List<User> myUsers = userService.findAll();
+        if ((limit == null) && (after == null))
+        {
+            List<User> myUsers = userService.findAll();
+            return new ResponseEntity<>(myUsers,
+                                        HttpStatus.OK);
+        }
+
+        int pageLimit = (limit == null) ? DEFAULT_PAGE_LIMIT : Math.max(1,
+                                                                        Math.min(limit,
+                                                                                 MAX_PAGE_LIMIT));
+        long afterUserid = (after == null) ? 0 : decodeCursor(after);
+
+        List<User> myUsers = userService.findAllAfter(afterUserid,
+                                                      pageLimit);
+
+        // a full page means there may be more users, so tell the client where to find them
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (myUsers.size() == pageLimit)
+        {
+            URI nextURI = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("limit",
+                                       pageLimit)
+                    .replaceQueryParam("after",
+                                       encodeCursor(myUsers.get(myUsers.size() - 1)
+                                                            .getUserid()))
+                    .build()
+                    .toUri();
+            responseHeaders.add(HttpHeaders.LINK,
+                                "<" + nextURI + ">; rel=\"next\"");
+        }
+
         return new ResponseEntity<>(myUsers,
+                                    responseHeaders,
                                     HttpStatus.OK);
     }
 
+    /**
+     * Streams every user, with their useremails and roles, as newline delimited JSON.
+     * Users are read through a database cursor and written as they are read so the full list is never held in memory.
+     * <br>Example: <a href="http://localhost:2019/users/users/export">http://localhost:2019/users/users/export</a>
+     *
+     * @param response the response the users are written to
+     * @throws IOException if the response cannot be written
+     * @see UserService#exportAll(java.util.function.Consumer) UserService.exportAll(Consumer)
+     */
+    @GetMapping(value = "/users/export",
+            produces = NDJSON_MEDIA_TYPE)
+    public void exportAllUsers(HttpServletResponse response) throws
+            IOException
+    {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+
+        OutputStream out = response.getOutputStream();
+        // the writer must not close the response after each user
+        ObjectWriter writer = objectMapper.writerFor(User.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long[] written = {0};
+        try
+        {
+            userService.exportAll(u ->
+                                  {
+                                      try
+                                      {
+                                          writer.writeValue(out,
+                                                            u);
+                                          out.write('\n');
+                                          if (++written[0] % EXPORT_FLUSH_EVERY == 0)
+                                          {
+                                              out.flush();
+                                          }
+                                      } catch (IOException ex)
+                                      {
+                                          throw new UncheckedIOException(ex);
+                                      }
+                                  });
+        } catch (UncheckedIOException ex)
+        {
+            throw ex.getCause();
+        }
+        out.flush();
+    }
+
+    /**
+     * Reports the hits, misses, evictions and size of the user caches
+     * <br>Example: <a href="http://localhost:2019/users/cache/stats">http://localhost:2019/users/cache/stats</a>
+     *
+     * @return JSON object of the cache statistics with a status of OK
+     * @see UserCache#getStatistics() UserCache.getStatistics()
+     */
+    @GetMapping(value = "/cache/stats",
+            produces = "application/json")
+    public ResponseEntity<?> getUserCacheStatistics()
+    {
+        return new ResponseEntity<>(userCache.getStatistics(),
+                                    HttpStatus.OK);
+    }
+
+    /**
+     * Turns a userid into the opaque cursor handed to clients
+     *
+     * @param userid the userid (long) of the last user on a page
+     * @return the cursor (String) pointing after that user
+     */
+    private static String encodeCursor(long userid)
+    {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((CURSOR_PREFIX + userid).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Turns a cursor given by a client back into a userid
+     *
+     * @param cursor the cursor (String) from a previous Link header
+     * @return the userid (long) the cursor points after
+     * @throws BadRequestException if the cursor was not produced by this application
+     */
+    private static long decodeCursor(String cursor) throws
+            BadRequestException
+    {
+        try
+        {
+            String decoded = new String(Base64.getUrlDecoder()
+                                                .decode(cursor),
+                                        StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX))
+            {
+                return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException ex)
+        {
+            // NumberFormatException is an IllegalArgumentException so falls through to the throw below
+        }
+        throw new BadRequestException("Cursor " + cursor + " not valid!");
+    }
+
     /**
      * Returns a single user based off a user id number
      * <br>Example: http://localhost:2019/users/user/7
@@ -143,6 +347,37 @@ public class UserController
                                     HttpStatus.CREATED);
     }
 
+    /**
+     * Given a list of complete User Objects, create all of the new User records and accompanying useremail records
+     * and user role records in one transaction. Meant for importing many users at once.
+     * <br> Example: <a href="http://localhost:2019/users/batch">http://localhost:2019/users/batch</a>
+     *
+     * @param newusers A list of complete new users to add including emails and roles.
+     *                 roles must already exist. Each user is validated like a single new user. A list of more than
+     *                 MAX_BATCH_SIZE users, or holding an invalid user, is rejected with Bad Request.
+     * @return JSON list of the primary keys of the new users, in the order given, and a status of CREATED
+     * @see UserService#saveAll(List) UserService.saveAll(List)
+     */
+    @PostMapping(value = "/batch",
+            consumes = "application/json",
+            produces = "application/json")
+    public ResponseEntity<?> addNewUsers(
+            @Valid
+            @Size(max = MAX_BATCH_SIZE)
+            @RequestBody
+                    List<User> newusers)
+    {
+        List<User> savedUsers = userService.saveAll(newusers);
+
+        List<Long> newUserIds = new ArrayList<>(savedUsers.size());
+        for (User u : savedUsers)
+        {
+            newUserIds.add(u.getUserid());
+        }
+        return new ResponseEntity<>(newUserIds,
+                                    HttpStatus.CREATED);
+    }
+
     /**
      * Given a complete User Object
      * Given the user id, primary key, is in the User table,
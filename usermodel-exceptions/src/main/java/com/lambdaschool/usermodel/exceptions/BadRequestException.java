@@ -0,0 +1,29 @@
+package com.lambdaschool.usermodel.exceptions;
+
+/**
+ * A custom exception to be used when a client sends a request we cannot make sense of, such as a cursor we did not hand out
+ */
+public class BadRequestException
+        extends RuntimeException
+{
+    public BadRequestException(String message)
+    {
+        super("Error from a Lambda School Application " + message);
+    }
+
+    /**
+     * Only fills in the stack trace for the sampled share of exceptions
+     *
+     * @return this exception
+     * @see StackTraceSampling
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+        if (StackTraceSampling.capture())
+        {
+            return super.fillInStackTrace();
+        }
+        return this;
+    }
+}
@@ -1,9 +1,11 @@
 package com.lambdaschool.usermodel.exceptions;
 
 
+import com.lambdaschool.usermodel.handlers.ErrorMetrics;
 import com.lambdaschool.usermodel.services.HelperFunctions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.servlet.error.DefaultErrorAttributes;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.WebRequest;
 
@@ -23,6 +25,12 @@ public class CustomErrorDetails
     @Autowired
     private HelperFunctions helperFunctions;
 
+    /**
+     * Counts and times the errors that get past RestExceptionHandler, such as database failures
+     */
+    @Autowired
+    private ErrorMetrics errorMetrics;
+
     /**
      * Custom method to override the error details provided by Spring Boot. We want to use our own format.
      *
@@ -35,6 +43,7 @@ public class CustomErrorDetails
             WebRequest webRequest,
             boolean includeStackTrace)
     {
+        long start = System.nanoTime();
 
         //Get all the normal error information
         Map<String, Object> errorAttributes =
@@ -48,7 +57,14 @@ public class CustomErrorDetails
         errorDetails.put("timestamp", errorAttributes.get("timestamp"));
         errorDetails.put("developerMessage", "path: " + errorAttributes.get("path"));
 
-        errorDetails.put("errors", helperFunctions.getConstraintViolation(this.getError(webRequest)));
+        Throwable error = this.getError(webRequest);
+        errorDetails.put("errors", helperFunctions.getConstraintViolation(error));
+
+        HttpStatus status = HttpStatus.resolve((Integer) errorAttributes.get("status"));
+        errorMetrics.recordBuilt("getErrorAttributes",
+                                 (status == null) ? HttpStatus.INTERNAL_SERVER_ERROR : status,
+                                 error,
+                                 start);
         return errorDetails;
     }
 }
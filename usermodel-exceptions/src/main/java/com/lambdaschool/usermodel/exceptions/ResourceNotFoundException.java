@@ -10,4 +10,20 @@ public class ResourceNotFoundException
     {
         super("Error from a Lambda School Application " + message);
     }
+
+    /**
+     * Only fills in the stack trace for the sampled share of exceptions
+     *
+     * @return this exception
+     * @see StackTraceSampling
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+        if (StackTraceSampling.capture())
+        {
+            return super.fillInStackTrace();
+        }
+        return this;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.lambdaschool.usermodel.exceptions;
+
+/**
+ * A custom exception to be used when a remote service we depend on cannot answer right now
+ */
+public class ServiceUnavailableException
+        extends RuntimeException
+{
+    public ServiceUnavailableException(String message)
+    {
+        super("Error from a Lambda School Application " + message);
+    }
+
+    public ServiceUnavailableException(
+            String message,
+            Throwable cause)
+    {
+        super("Error from a Lambda School Application " + message,
+              cause);
+    }
+
+    /**
+     * Only fills in the stack trace for the sampled share of exceptions
+     *
+     * @return this exception
+     * @see StackTraceSampling
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+        if (StackTraceSampling.capture())
+        {
+            return super.fillInStackTrace();
+        }
+        return this;
+    }
+}
@@ -0,0 +1,67 @@
+package com.lambdaschool.usermodel.exceptions;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether our own exceptions capture a stack trace.
+ * <p>
+ * ResourceNotFoundException and ResourceFoundException are thrown for routine problems like a missing id and the
+ * stack trace is never reported to the client, so filling it in is mostly wasted work. The sample rate is the
+ * fraction of these exceptions that still capture one, for debugging. 1 captures every stack trace, 0 captures none.
+ */
+public final class StackTraceSampling
+{
+    /**
+     * The fraction (double) of exceptions that capture a stack trace. Every one does until configured otherwise.
+     */
+    private static volatile double sampleRate = 1.0;
+
+    private StackTraceSampling()
+    {
+    }
+
+    /**
+     * Getter for the sample rate
+     *
+     * @return the fraction (double), from 0 to 1, of exceptions that capture a stack trace
+     */
+    public static double getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    /**
+     * Setter for the sample rate
+     *
+     * @param sampleRate the new fraction (double), from 0 to 1, of exceptions that capture a stack trace
+     * @throws IllegalArgumentException if the rate is not between 0 and 1
+     */
+    public static void setSampleRate(double sampleRate)
+    {
+        if (!(sampleRate >= 0.0 && sampleRate <= 1.0))
+        {
+            throw new IllegalArgumentException("Stack trace sample rate must be between 0 and 1, not " + sampleRate);
+        }
+        StackTraceSampling.sampleRate = sampleRate;
+    }
+
+    /**
+     * Decides whether the exception being created should capture its stack trace
+     *
+     * @return true if the stack trace should be filled in
+     */
+    static boolean capture()
+    {
+        double rate = sampleRate;
+        if (rate >= 1.0)
+        {
+            return true;
+        }
+        if (rate <= 0.0)
+        {
+            return false;
+        }
+        return ThreadLocalRandom.current()
+                .nextDouble() < rate;
+    }
+}
@@ -0,0 +1,173 @@
+package com.lambdaschool.usermodel.handlers;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the error body for exceptions our application throws itself straight to the response.
+ * The JSON is the same as an ErrorDetail with no validation errors, but no ErrorDetail, Date or list is built.
+ * <p>
+ * Everything except the detail message and the timestamp is encoded once per exception class. The timestamp
+ * only changes once a second so it is encoded once a second.
+ */
+@Component
+public class ErrorBodyWriter
+{
+    /**
+     * The detail of an exception without a message
+     */
+    private static final byte[] NULL_DETAIL = "null".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Formats timestamps the same way Jackson formats the ErrorDetail timestamp
+     */
+    private final DateTimeFormatter timestampFormat;
+
+    /**
+     * The encoded parts of the error body for each exception class
+     */
+    private final Map<Class<?>, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * The most recently encoded timestamp
+     */
+    private volatile EncodedSecond lastSecond = new EncodedSecond(Long.MIN_VALUE,
+                                                                  new byte[0]);
+
+    /**
+     * Creates the writer using the application's Jackson date settings
+     *
+     * @param dateFormat the Jackson date format (String) used for the timestamp
+     * @param timeZone   the Jackson time zone (String) used for the timestamp
+     */
+    public ErrorBodyWriter(
+            @Value("${spring.jackson.date-format:yyyy-MM-dd HH:mm:ss}")
+                    String dateFormat,
+            @Value("${spring.jackson.time-zone:UTC}")
+                    String timeZone)
+    {
+        timestampFormat = DateTimeFormatter.ofPattern(dateFormat)
+                .withZone(ZoneId.of(timeZone));
+    }
+
+    /**
+     * Sends the error body for the given exception
+     *
+     * @param response the response to write to
+     * @param status   the Http Status of the error. Must always be the same for a given exception class.
+     * @param title    the title (String) of the error. Must always be the same for a given exception class.
+     * @param ex       the exception being reported. Its message becomes the detail.
+     * @throws IOException if the response cannot be written
+     */
+    public void write(
+            HttpServletResponse response,
+            HttpStatus status,
+            String title,
+            Throwable ex) throws
+            IOException
+    {
+        Template template = templates.computeIfAbsent(ex.getClass(),
+                                                      c -> new Template(status,
+                                                                        title,
+                                                                        c.getName()));
+        // a message is written as a JSON string, no message as null, as Jackson writes ErrorDetail
+        String message = ex.getMessage();
+        byte[] detail = (message == null) ? NULL_DETAIL : JsonStringEncoder.getInstance()
+                .quoteAsUTF8(message);
+        int quotes = (message == null) ? 0 : 2;
+        byte[] timestamp = timestamp();
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(template.head.length + quotes + detail.length + template.middle.length + timestamp.length + template.tail.length);
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write(template.head);
+        if (message == null)
+        {
+            out.write(detail);
+        } else
+        {
+            out.write('"');
+            out.write(detail);
+            out.write('"');
+        }
+        out.write(template.middle);
+        out.write(timestamp);
+        out.write(template.tail);
+    }
+
+    /**
+     * Returns the current time encoded for the timestamp field, reusing the last encoding within the same second
+     *
+     * @return the encoded current time
+     */
+    private byte[] timestamp()
+    {
+        long second = System.currentTimeMillis() / 1000;
+        EncodedSecond last = lastSecond;
+        if (last.second != second)
+        {
+            last = new EncodedSecond(second,
+                                     timestampFormat.format(Instant.ofEpochSecond(second))
+                                             .getBytes(StandardCharsets.UTF_8));
+            lastSecond = last;
+        }
+        return last.encoded;
+    }
+
+    /**
+     * The fixed parts of an error body, surrounding the detail and the timestamp. The detail is left unquoted,
+     * as it may be null.
+     */
+    private static final class Template
+    {
+        private final byte[] head;
+
+        private final byte[] middle;
+
+        private final byte[] tail;
+
+        private Template(
+                HttpStatus status,
+                String title,
+                String developerMessage)
+        {
+            JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+            head = ("{\"title\":\"" + new String(encoder.quoteAsString(title)) + "\",\"status\":" + status.value() + ",\"detail\":").getBytes(StandardCharsets.UTF_8);
+            middle = ",\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+            tail = ("\",\"developerMessage\":\"" + new String(encoder.quoteAsString(developerMessage)) + "\",\"errors\":[]}").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A second, in epoch seconds, and its encoded timestamp
+     */
+    private static final class EncodedSecond
+    {
+        private final long second;
+
+        private final byte[] encoded;
+
+        private EncodedSecond(
+                long second,
+                byte[] encoded)
+        {
+            this.second = second;
+            this.encoded = encoded;
+        }
+    }
+}
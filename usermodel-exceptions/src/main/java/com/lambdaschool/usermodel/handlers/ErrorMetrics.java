@@ -0,0 +1,197 @@
+package com.lambdaschool.usermodel.handlers;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the error responses produced by RestExceptionHandler, and by CustomErrorDetails for errors that get past it,
+ * and times how long each handler takes to produce one.
+ * <p>
+ * Handlers produce their responses in one of two ways, and the time covers a different span for each, so each way
+ * has a timer of its own rather than mixing the two in one histogram:
+ * <ul>
+ * <li>usermodel.errors - responses, tagged by handler, status and exception</li>
+ * <li>usermodel.errors.write - handlers that write the error body to the response themselves through
+ * ErrorBodyWriter. Covers building and writing the body. Tagged by handler, with a latency histogram.</li>
+ * <li>usermodel.errors.build - handlers that return an ErrorDetail, or a map of error attributes, for Spring to
+ * serialize. Covers building the error details only; the Jackson serialization that follows is not included.
+ * Tagged by handler, with a latency histogram.</li>
+ * </ul>
+ * Counts are kept in LongAdders, which stay cheap when many request threads report errors at once.
+ */
+@Component
+public class ErrorMetrics
+{
+    /**
+     * Where the counters and timers are published
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * One counter for each handler, status and exception class seen so far
+     */
+    private final Map<CounterKey, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * One usermodel.errors.write timer for each handler seen so far
+     */
+    private final Map<String, Timer> writeTimers = new ConcurrentHashMap<>();
+
+    /**
+     * One usermodel.errors.build timer for each handler seen so far
+     */
+    private final Map<String, Timer> buildTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Records one error response whose body the handler has already written to the response
+     *
+     * @param handler    the name (String) of the handler method that produced the response
+     * @param status     the Http Status of the response
+     * @param ex         the exception being reported. May be null if there is none.
+     * @param startNanos the System.nanoTime() (long) when the handler started
+     */
+    public void recordWritten(
+            String handler,
+            HttpStatus status,
+            Throwable ex,
+            long startNanos)
+    {
+        count(handler,
+              status,
+              ex);
+        writeTimers.computeIfAbsent(handler,
+                                    name -> registerTimer("usermodel.errors.write",
+                                                          "Time spent building and writing an error response body",
+                                                          name))
+                .record(System.nanoTime() - startNanos,
+                        TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records one error response whose details the handler has built but Spring has still to serialize
+     *
+     * @param handler    the name (String) of the handler method that produced the response
+     * @param status     the Http Status of the response
+     * @param ex         the exception being reported. May be null if there is none.
+     * @param startNanos the System.nanoTime() (long) when the handler started
+     */
+    public void recordBuilt(
+            String handler,
+            HttpStatus status,
+            Throwable ex,
+            long startNanos)
+    {
+        count(handler,
+              status,
+              ex);
+        buildTimers.computeIfAbsent(handler,
+                                    name -> registerTimer("usermodel.errors.build",
+                                                          "Time spent building error details, before they are serialized",
+                                                          name))
+                .record(System.nanoTime() - startNanos,
+                        TimeUnit.NANOSECONDS);
+    }
+
+    private void count(
+            String handler,
+            HttpStatus status,
+            Throwable ex)
+    {
+        counters.computeIfAbsent(new CounterKey(handler,
+                                                status.value(),
+                                                (ex == null) ? null : ex.getClass()),
+                                 this::registerCounter)
+                .increment();
+    }
+
+    private LongAdder registerCounter(CounterKey key)
+    {
+        LongAdder adder = new LongAdder();
+        FunctionCounter.builder("usermodel.errors",
+                                adder,
+                                LongAdder::sum)
+                .description("Error responses by handler, status and exception")
+                .tag("handler",
+                     key.handler)
+                .tag("status",
+                     Integer.toString(key.status))
+                .tag("exception",
+                     (key.type == null) ? "none" : key.type.getName())
+                .register(meterRegistry);
+        return adder;
+    }
+
+    private Timer registerTimer(
+            String name,
+            String description,
+            String handler)
+    {
+        return Timer.builder(name)
+                .description(description)
+                .tag("handler",
+                     handler)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+
+    /**
+     * What a counter is kept for: a handler, a status and an exception class
+     */
+    private static final class CounterKey
+    {
+        private final String handler;
+
+        private final int status;
+
+        private final Class<?> type;
+
+        private CounterKey(
+                String handler,
+                int status,
+                Class<?> type)
+        {
+            this.handler = handler;
+            this.status = status;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof CounterKey))
+            {
+                return false;
+            }
+            CounterKey that = (CounterKey) o;
+            return status == that.status &&
+                    handler.equals(that.handler) &&
+                    type == that.type;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(handler,
+                                status,
+                                type);
+        }
+    }
+}
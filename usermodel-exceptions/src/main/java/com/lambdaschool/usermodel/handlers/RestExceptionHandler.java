@@ -1,7 +1,9 @@
 package com.lambdaschool.usermodel.handlers;
 
+import com.lambdaschool.usermodel.exceptions.BadRequestException;
 import com.lambdaschool.usermodel.exceptions.ResourceFoundException;
 import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.exceptions.ServiceUnavailableException;
 import com.lambdaschool.usermodel.models.ErrorDetail;
 import com.lambdaschool.usermodel.services.HelperFunctions;
 import org.springframework.beans.ConversionNotSupportedException;
@@ -30,6 +32,9 @@ import org.springframework.web.multipart.support.MissingServletRequestPartExcept
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolationException;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Date;
 
@@ -38,6 +43,9 @@ import java.util.Date;
  * This class is shared across all controllers due to the annotation RestControllerAdvice;
  * this class gives advice to all controllers on how to handle exceptions.
  * Due to the annotation Order(Ordered.HIGHEST_PRECEDENCE), this class takes precedence over all other controller advisors.
+ * <p>
+ * Spring creates some of these exceptions itself without a cause, such as an unsupported method or a missing handler.
+ * Those can never wrap a constraint violation, so their handlers do not look for one.
  */
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @RestControllerAdvice
@@ -50,6 +58,18 @@ public class RestExceptionHandler
     @Autowired
     private HelperFunctions helperFunctions;
 
+    /**
+     * Writes the error details for our own exceptions directly to the response
+     */
+    @Autowired
+    private ErrorBodyWriter errorBodyWriter;
+
+    /**
+     * Counts and times every error response produced here
+     */
+    @Autowired
+    private ErrorMetrics errorMetrics;
+
     /**
      * The constructor for the RestExceptionHandler. Currently we do not do anything special. We just call the parent constructor.
      */
@@ -61,44 +81,137 @@ public class RestExceptionHandler
     /**
      * Our custom handling of ResourceNotFoundExceptions. This gets thrown manually by our application.
      *
-     * @param rnfe All the information about the exception that is thrown.
-     * @return The error details for displaying to the client plus the status Not Found.
+     * These are thrown for every missing id, so the error details are written straight to the response.
+     * They are never caused by a validation failure, so there are no constraint violations to look for.
+     *
+     * @param rnfe     All the information about the exception that is thrown.
+     * @param response The response the error details, and the status Not Found, are written to.
+     * @throws IOException if the response cannot be written
      */
     @ExceptionHandler(ResourceNotFoundException.class)
-    public ResponseEntity<?> handleResourceNotFoundException(ResourceNotFoundException rnfe)
+    public void handleResourceNotFoundException(
+            ResourceNotFoundException rnfe,
+            HttpServletResponse response) throws
+            IOException
     {
-        ErrorDetail errorDetail = new ErrorDetail();
-        errorDetail.setTimestamp(new Date());
-        errorDetail.setStatus(HttpStatus.NOT_FOUND.value());
-        errorDetail.setTitle("Resource Not Found");
-        errorDetail.setDetail(rnfe.getMessage());
-        errorDetail.setDeveloperMessage(rnfe.getClass()
-                                                .getName());
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(rnfe));
-
-        return new ResponseEntity<>(errorDetail,
-                                    null,
-                                    HttpStatus.NOT_FOUND);
+        long start = System.nanoTime();
+        errorBodyWriter.write(response,
+                              HttpStatus.NOT_FOUND,
+                              "Resource Not Found",
+                              rnfe);
+        errorMetrics.recordWritten("handleResourceNotFoundException",
+                                   HttpStatus.NOT_FOUND,
+                                   rnfe,
+                                   start);
     }
 
     /**
      * Our custom handling of ResourceFoundExceptions. This gets thrown manually by our application.
      *
-     * @param rfe All the information about the exception that is thrown.
-     * @return The error details for displaying to the client plus the status Bad Request.
+     * Written straight to the response like ResourceNotFoundExceptions.
+     *
+     * @param rfe      All the information about the exception that is thrown.
+     * @param response The response the error details, and the status Bad Request, are written to.
+     * @throws IOException if the response cannot be written
      */
     @ExceptionHandler(ResourceFoundException.class)
-    public ResponseEntity<?> handleResourceFoundException(ResourceFoundException rfe)
+    public void handleResourceFoundException(
+            ResourceFoundException rfe,
+            HttpServletResponse response) throws
+            IOException
+    {
+        long start = System.nanoTime();
+        errorBodyWriter.write(response,
+                              HttpStatus.BAD_REQUEST,
+                              "Unexpected Resource",
+                              rfe);
+        errorMetrics.recordWritten("handleResourceFoundException",
+                                   HttpStatus.BAD_REQUEST,
+                                   rfe,
+                                   start);
+    }
+
+    /**
+     * Our custom handling of BadRequestExceptions. This gets thrown manually by our application when a request
+     * is well formed but one of its values is not, such as a paging cursor we did not hand out.
+     *
+     * Written straight to the response like ResourceNotFoundExceptions.
+     *
+     * @param bre      All the information about the exception that is thrown.
+     * @param response The response the error details, and the status Bad Request, are written to.
+     * @throws IOException if the response cannot be written
+     */
+    @ExceptionHandler(BadRequestException.class)
+    public void handleBadRequestException(
+            BadRequestException bre,
+            HttpServletResponse response) throws
+            IOException
     {
+        long start = System.nanoTime();
+        errorBodyWriter.write(response,
+                              HttpStatus.BAD_REQUEST,
+                              "Bad Request",
+                              bre);
+        errorMetrics.recordWritten("handleBadRequestException",
+                                   HttpStatus.BAD_REQUEST,
+                                   bre,
+                                   start);
+    }
+
+    /**
+     * Our custom handling of ServiceUnavailableExceptions. This gets thrown by our application when a remote
+     * service, such as the countries API, is too busy or too slow to answer.
+     *
+     * Written straight to the response like ResourceNotFoundExceptions.
+     *
+     * @param sue      All the information about the exception that is thrown.
+     * @param response The response the error details, and the status Service Unavailable, are written to.
+     * @throws IOException if the response cannot be written
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public void handleServiceUnavailableException(
+            ServiceUnavailableException sue,
+            HttpServletResponse response) throws
+            IOException
+    {
+        long start = System.nanoTime();
+        errorBodyWriter.write(response,
+                              HttpStatus.SERVICE_UNAVAILABLE,
+                              "Service Unavailable",
+                              sue);
+        errorMetrics.recordWritten("handleServiceUnavailableException",
+                                   HttpStatus.SERVICE_UNAVAILABLE,
+                                   sue,
+                                   start);
+    }
+
+    /**
+     * Our custom handling of ConstraintViolationExceptions thrown by method validation, such as a batch of users
+     * that is too large or holds an invalid user. These are the client's fault so are reported as Bad Request.
+     *
+     * @param cve     All the information about the exception that is thrown.
+     * @param request The request that was made by the client.
+     * @return The error details, including each violation, and the status Bad Request.
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Object> handleConstraintViolationException(
+            ConstraintViolationException cve,
+            WebRequest request)
+    {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(HttpStatus.BAD_REQUEST.value());
-        errorDetail.setTitle("Unexpected Resource");
-        errorDetail.setDetail(rfe.getMessage());
-        errorDetail.setDeveloperMessage(rfe.getClass()
+        errorDetail.setTitle("Constraint Violation");
+        errorDetail.setDetail(request.getDescription(false));
+        errorDetail.setDeveloperMessage(cve.getClass()
                                                 .getName());
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(rfe));
+        errorDetail.setErrors(helperFunctions.getConstraintViolation(cve));
 
+        errorMetrics.recordBuilt("handleConstraintViolationException",
+                                 HttpStatus.BAD_REQUEST,
+                                 cve,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     HttpStatus.BAD_REQUEST);
@@ -122,6 +235,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -131,6 +245,10 @@ public class RestExceptionHandler
                                                 .getName());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleExceptionInternal",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -157,14 +275,18 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
         errorDetail.setTitle("Incorrect method: " + ex.getMethod());
         errorDetail.setDetail("Path: " + request.getDescription(false) + " | Supported Methods are: " + Arrays.toString(ex.getSupportedMethods()));
         errorDetail.setDeveloperMessage("HTTP Method Not Valid for Endpoint (check for valid URI and proper HTTP Method)");
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleHttpRequestMethodNotSupported",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -186,14 +308,18 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
         errorDetail.setTitle("Incorrect content type: " + ex.getContentType());
         errorDetail.setDetail("Path: " + request.getDescription(false) + " | Supported Content / Media Types are: " + ex.getSupportedMediaTypes());
         errorDetail.setDeveloperMessage("Content / Media Type Not Valid for Endpoint (check for valid URI and proper content / media type)");
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleHttpMediaTypeNotSupported",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -217,14 +343,18 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
         errorDetail.setTitle("Unacceptable content type: " + ex.getMessage());
         errorDetail.setDetail("Path: " + request.getDescription(false) + " | Supported Content / Media Types are: " + ex.getSupportedMediaTypes());
         errorDetail.setDeveloperMessage("Content / Media Type Not Valid for Endpoint (check for valid URI and proper content / media type)");
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleHttpMediaTypeNotAcceptable",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -246,6 +376,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -253,8 +384,11 @@ public class RestExceptionHandler
         errorDetail.setDetail(ex.getMessage());
         errorDetail.setDeveloperMessage(ex.getClass()
                                                 .getName());
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleMissingPathVariable",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -276,14 +410,18 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
         errorDetail.setTitle("Parameter Missing for " + "Path: " + request.getDescription(false));
         errorDetail.setDetail("Parameter Missing: " + ex.getParameterName() + " Type: " + ex.getParameterType());
         errorDetail.setDeveloperMessage(ex.getMessage() + " " + ex.getClass());
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleMissingServletRequestParameter",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -305,6 +443,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -314,6 +453,10 @@ public class RestExceptionHandler
                                                 .getName());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleServletRequestBindingException",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -335,6 +478,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -344,6 +488,10 @@ public class RestExceptionHandler
                                                 .getName() + " " + ex.getMostSpecificCause());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleConversionNotSupported",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -365,6 +513,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -374,6 +523,10 @@ public class RestExceptionHandler
                                                 .getName() + " " + ex.getMostSpecificCause());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleTypeMismatch",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -395,6 +548,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -404,6 +558,10 @@ public class RestExceptionHandler
                                                 .getName() + " " + ex.getMostSpecificCause());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleHttpMessageNotReadable",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -425,6 +583,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -434,6 +593,10 @@ public class RestExceptionHandler
                                                 .getName() + " " + ex.getMostSpecificCause());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleHttpMessageNotWritable",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -455,6 +618,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -464,6 +628,10 @@ public class RestExceptionHandler
                                                 .toString());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleMethodArgumentNotValid",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -485,6 +653,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -492,8 +661,11 @@ public class RestExceptionHandler
         errorDetail.setDetail("Request Part Name: " + ex.getRequestPartName() + " | " + ex.getMessage());
         errorDetail.setDeveloperMessage(ex.getClass()
                                                 .getName());
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleMissingServletRequestPart",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -515,6 +687,7 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
@@ -524,6 +697,10 @@ public class RestExceptionHandler
                                                 .getName() + " " + ex.getBindingResult());
         errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleBindException",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -549,14 +726,18 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest request)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
         errorDetail.setTitle("Rest Endpoint Not Valid");
         errorDetail.setDetail(request.getDescription(false));
         errorDetail.setDeveloperMessage("Rest Handler Not Found (check for valid URI)");
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleNoHandlerFoundException",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
@@ -578,14 +759,18 @@ public class RestExceptionHandler
             HttpStatus status,
             WebRequest webRequest)
     {
+        long start = System.nanoTime();
         ErrorDetail errorDetail = new ErrorDetail();
         errorDetail.setTimestamp(new Date());
         errorDetail.setStatus(status.value());
         errorDetail.setTitle("Async Request Timeout Error");
         errorDetail.setDetail("path: " + webRequest.getDescription(false));
         errorDetail.setDeveloperMessage(ex.getMessage());
-        errorDetail.setErrors(helperFunctions.getConstraintViolation(ex));
 
+        errorMetrics.recordBuilt("handleAsyncRequestTimeoutException",
+                                 status,
+                                 ex,
+                                 start);
         return new ResponseEntity<>(errorDetail,
                                     null,
                                     status);
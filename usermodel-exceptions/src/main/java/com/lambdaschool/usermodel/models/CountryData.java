@@ -1,7 +1,13 @@
 package com.lambdaschool.usermodel.models;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -9,6 +15,7 @@ import java.util.Map;
  * The purpose of this model is to hold selective data from the rest country api system found at
  * <br><a href="https://restcountries.eu">https://restcountries.eu</a>
  * Note that this class is not an entity so will not get saved into the database.
+ * Country data cannot be changed once created, so one copy can be shared by every request.
  */
 
 // needed to ignore any fields coming across that we do not want in our final class.
@@ -18,53 +25,76 @@ public class CountryData
     /**
      * name for this country
      */
-    private String name;
+    private final String name;
 
     /**
      * List of the internet top level domains assigned to this country
      */
-    private List<String> topleveldomain;
+    private final List<String> topleveldomain;
 
     /**
      * The demonym, name, of the people of this country
      */
-    private String demonym;
+    private final String demonym;
 
     /**
      * The population of this country
      */
-    private long population;
+    private final long population;
 
     /**
      * List of currencies used in this country
      */
-    private List<Currency> currencies;
+    private final List<Currency> currencies;
 
     /**
      * Map of the translations of the name of this country. The country code with the translation
      */
-    private Map<String, String> translations;
-
-    // Yes we need getters and setters for all the fields so Jackson can convert from JSON to POJO
+    private final Map<String, String> translations;
 
     /**
-     * Getter for the name of this country
+     * Creates country data. Used by Jackson when reading the countries API.
+     * The lists and map are copied so later changes to them cannot reach this country.
      *
-     * @return the name (String) of this country
-     */
-    public String getName()
+     * @param name           name (String) for this country
+     * @param topleveldomain list of the internet top level domains (String) assigned to this country
+     * @param demonym        the demonym, name, (String) of the people of this country
+     * @param population     the population (long) of this country
+     * @param currencies     list of Currency used in this country
+     * @param translations   map with country code as key and the translation of this country's name as the value
+     */
+    @JsonCreator
+    public CountryData(
+            @JsonProperty("name")
+                    String name,
+            @JsonProperty("topleveldomain")
+            @JsonAlias("topLevelDomain")
+                    List<String> topleveldomain,
+            @JsonProperty("demonym")
+                    String demonym,
+            @JsonProperty("population")
+                    long population,
+            @JsonProperty("currencies")
+                    List<Currency> currencies,
+            @JsonProperty("translations")
+                    Map<String, String> translations)
     {
-        return name;
+        this.name = name;
+        this.topleveldomain = (topleveldomain == null) ? null : Collections.unmodifiableList(new ArrayList<>(topleveldomain));
+        this.demonym = demonym;
+        this.population = population;
+        this.currencies = (currencies == null) ? null : Collections.unmodifiableList(new ArrayList<>(currencies));
+        this.translations = (translations == null) ? null : Collections.unmodifiableMap(new LinkedHashMap<>(translations));
     }
 
     /**
-     * Setter for the name of this country
+     * Getter for the name of this country
      *
-     * @param name the new name (String) of this country
+     * @return the name (String) of this country
      */
-    public void setName(String name)
+    public String getName()
     {
-        this.name = name;
+        return name;
     }
 
     /**
@@ -77,16 +107,6 @@ public class CountryData
         return topleveldomain;
     }
 
-    /**
-     * Setter for the list of the internet top level domains assigned to this country
-     *
-     * @param topleveldomain the new list of the internet top level domains (String) assigned to this country
-     */
-    public void setTopleveldomain(List<String> topleveldomain)
-    {
-        this.topleveldomain = topleveldomain;
-    }
-
     /**
      * Getter for the demonym, name, of the people of this country
      *
@@ -97,16 +117,6 @@ public class CountryData
         return demonym;
     }
 
-    /**
-     * Setter for the demonym, name, of the people of this country
-     *
-     * @param demonym The new demonym, name, (String) of the people of this country
-     */
-    public void setDemonym(String demonym)
-    {
-        this.demonym = demonym;
-    }
-
     /**
      * Getter for the population of this country
      *
@@ -117,16 +127,6 @@ public class CountryData
         return population;
     }
 
-    /**
-     * Setter for the population of this country
-     *
-     * @param population the new population (long) of this country
-     */
-    public void setPopulation(long population)
-    {
-        this.population = population;
-    }
-
     /**
      * List of currencies used in this country
      *
@@ -137,16 +137,6 @@ public class CountryData
         return currencies;
     }
 
-    /**
-     * Setter for the list of currencies used in the country
-     *
-     * @param currencies new list of Currency used in this country
-     */
-    public void setCurrencies(List<Currency> currencies)
-    {
-        this.currencies = currencies;
-    }
-
     /**
      * Getter for the translations of this country's name
      *
@@ -157,13 +147,4 @@ public class CountryData
         return translations;
     }
 
-    /**
-     * Setter for the translations of this country's name
-     *
-     * @param translations new map with country code as key and the translation of this country's name for the given country code as the value
-     */
-    public void setTranslations(Map<String, String> translations)
-    {
-        this.translations = translations;
-    }
 }
@@ -0,0 +1,132 @@
+package com.lambdaschool.usermodel.models;
+
+/**
+ * A model to report what happened to one country code during a prefetch of country data.
+ * Note that this class is not an entity so will not get saved into the database.
+ */
+public class CountryPrefetch
+{
+    /**
+     * What happened to a country code during a prefetch
+     */
+    public enum Outcome
+    {
+        /**
+         * The country was already cached so the countries API was not called
+         */
+        CACHED,
+
+        /**
+         * The country was fetched from the countries API and is now cached
+         */
+        FETCHED,
+
+        /**
+         * The countries API does not know the country code
+         */
+        NOT_FOUND,
+
+        /**
+         * The countries API could not be called, did not answer in time, or refused the country code
+         */
+        FAILED
+    }
+
+    /**
+     * The lowercase country code (String) that was prefetched
+     */
+    private final String countrycode;
+
+    /**
+     * What happened to this country code
+     */
+    private final Outcome outcome;
+
+    /**
+     * The name (String) of the country, if it is now cached
+     */
+    private final String name;
+
+    /**
+     * How long, in milliseconds, this country code took
+     */
+    private final double millis;
+
+    /**
+     * Why the country code was not cached, if it was not
+     */
+    private final String detail;
+
+    /**
+     * Creates the report for one country code
+     *
+     * @param countrycode the lowercase country code (String) that was prefetched
+     * @param outcome     what happened to the country code
+     * @param name        the name (String) of the country, or null if it is not cached
+     * @param millis      how long (double), in milliseconds, the country code took
+     * @param detail      why (String) the country code was not cached, or null if it was
+     */
+    public CountryPrefetch(
+            String countrycode,
+            Outcome outcome,
+            String name,
+            double millis,
+            String detail)
+    {
+        this.countrycode = countrycode;
+        this.outcome = outcome;
+        this.name = name;
+        this.millis = millis;
+        this.detail = detail;
+    }
+
+    /**
+     * Getter for the country code
+     *
+     * @return the lowercase country code (String) that was prefetched
+     */
+    public String getCountrycode()
+    {
+        return countrycode;
+    }
+
+    /**
+     * Getter for the outcome
+     *
+     * @return what happened to this country code
+     */
+    public Outcome getOutcome()
+    {
+        return outcome;
+    }
+
+    /**
+     * Getter for the name of the country
+     *
+     * @return the name (String) of the country, or null if it is not cached
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Getter for the time taken
+     *
+     * @return how long (double), in milliseconds, this country code took
+     */
+    public double getMillis()
+    {
+        return millis;
+    }
+
+    /**
+     * Getter for the detail
+     *
+     * @return why (String) the country code was not cached, or null if it was
+     */
+    public String getDetail()
+    {
+        return detail;
+    }
+}
@@ -1,43 +1,58 @@
 package com.lambdaschool.usermodel.models;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
- * Class to hold different types of currencies from the country data
+ * Class to hold different types of currencies from the country data.
+ * A currency cannot be changed once created so it can be shared between requests.
  */
 public class Currency
 {
     /**
      * Code (String) for the currency
      */
-    private String code;
+    private final String code;
 
     /**
      * Name (String) for the currency
      */
-    private String name;
+    private final String name;
 
     /**
      * Symbol (String) for the currency
      */
-    private String symbol;
+    private final String symbol;
 
     /**
-     * Getter for Code for the currency
+     * Creates a currency. Used by Jackson when reading the countries API.
      *
-     * @return code (String) for the currency
+     * @param code   code (String) for the currency
+     * @param name   name (String) for the currency
+     * @param symbol symbol (String) for the currency
      */
-    public String getCode()
+    @JsonCreator
+    public Currency(
+            @JsonProperty("code")
+                    String code,
+            @JsonProperty("name")
+                    String name,
+            @JsonProperty("symbol")
+                    String symbol)
     {
-        return code;
+        this.code = code;
+        this.name = name;
+        this.symbol = symbol;
     }
 
     /**
-     * Setter for Code for the currency
+     * Getter for Code for the currency
      *
-     * @param code the new code (String) for this currency
+     * @return code (String) for the currency
      */
-    public void setCode(String code)
+    public String getCode()
     {
-        this.code = code;
+        return code;
     }
 
     /**
@@ -50,16 +65,6 @@ public class Currency
         return name;
     }
 
-    /**
-     * Setter for Name for the currency
-     *
-     * @param name the new name (String) for this currency
-     */
-    public void setName(String name)
-    {
-        this.name = name;
-    }
-
     /**
      * Getter for Symbol for the currency
      *
@@ -70,13 +75,4 @@ public class Currency
         return symbol;
     }
 
-    /**
-     * Setter for Symbol for the currency
-     *
-     * @param symbol the new Symbol (String) for this currency
-     */
-    public void setSymbol(String symbol)
-    {
-        this.symbol = symbol;
-    }
 }
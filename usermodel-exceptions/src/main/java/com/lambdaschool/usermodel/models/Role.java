@@ -1,6 +1,9 @@
 package com.lambdaschool.usermodel.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
@@ -22,10 +25,17 @@ public class Role
         extends Auditable
 {
     /**
-     * The primary key (long) of the roles table.
+     * The primary key (long) of the roles table. Generated from the roles_seq sequence.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE,
+            generator = "roles_seq")
+    @GenericGenerator(name = "roles_seq",
+            strategy = "com.lambdaschool.usermodel.config.PooledLoSequenceGenerator",
+            parameters = {@Parameter(name = "sequence_name",
+                    value = "roles_seq"),
+                    @Parameter(name = "increment_size",
+                            value = "50")})
     private long roleid;
 
     /**
@@ -39,7 +49,10 @@ public class Role
     /**
      * Part of the join relationship between user and role
      * connects roles to the user role combination
+     * <p>
+     * When a list of roles is read, the users for up to BatchSize roles are loaded in one query
      */
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "role",
             cascade = CascadeType.ALL,
             orphanRemoval = true)
@@ -104,7 +117,8 @@ public class Role
     }
 
     /**
-     * Getter for user role combinations
+     * Getter for user role combinations.
+     * Hibernate fills this set with one user role per row. Its user roles are compared by identity, see UserRoles.
      *
      * @return A list of user role combinations associated with this role
      */
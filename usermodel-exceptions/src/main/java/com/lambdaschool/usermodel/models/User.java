@@ -2,6 +2,9 @@ package com.lambdaschool.usermodel.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
@@ -11,6 +14,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.Email;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -21,22 +25,44 @@ import java.util.Set;
  * The entity allowing interaction with the users table
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = {@UniqueConstraint(name = User.USERNAME_CONSTRAINT,
+                columnNames = "username"),
+                @UniqueConstraint(name = User.PRIMARYEMAIL_CONSTRAINT,
+                        columnNames = "primaryemail")})
 public class User
         extends Auditable
 {
+    /**
+     * Name of the unique constraint on username, so a violation of it can be recognized
+     */
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
+    /**
+     * Name of the unique constraint on primaryemail, so a violation of it can be recognized
+     */
+    public static final String PRIMARYEMAIL_CONSTRAINT = "uk_users_primaryemail";
+
     /**
      * The primary key (long) of the users table.
+     * Comes from its own sequence, handed out in blocks so inserts can be batched.
+     * See PooledLoSequenceGenerator for how the block size is set.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE,
+            generator = "users_seq")
+    @GenericGenerator(name = "users_seq",
+            strategy = "com.lambdaschool.usermodel.config.PooledLoSequenceGenerator",
+            parameters = {@Parameter(name = "sequence_name",
+                    value = "users_seq"),
+                    @Parameter(name = "increment_size",
+                            value = "50")})
     private long userid;
 
     /**
      * The username (String). Cannot be null and must be unique
      */
-    @Column(nullable = false,
-            unique = true)
+    @Column(nullable = false)
     private String username;
 
     /**
@@ -49,14 +75,16 @@ public class User
     /**
      * Primary email account of user. Could be used as the userid. Cannot be null and must be unique.
      */
-    @Column(nullable = false,
-            unique = true)
+    @Column(nullable = false)
     @Email
     private String primaryemail;
 
     /**
      * A list of emails for this user
+     * <p>
+     * When a list of users is read, the emails for up to BatchSize users are loaded in one query
      */
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "user",
             cascade = CascadeType.ALL,
             orphanRemoval = true)
@@ -66,7 +94,10 @@ public class User
     /**
      * Part of the join relationship between user and role
      * connects users to the user role combination
+     * <p>
+     * When a list of users is read, the roles for up to BatchSize users are loaded in one query
      */
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "user",
             cascade = CascadeType.ALL,
             orphanRemoval = true)
@@ -200,7 +231,9 @@ public class User
     }
 
     /**
-     * Getter for user role combinations
+     * Getter for user role combinations.
+     * A user role is only equal to itself, see UserRoles, so the set will not drop a role added twice.
+     * Add each role once, and look a role up by its roleid.
      *
      * @return A list of user role combinations associated with this user
      */
@@ -17,8 +17,14 @@ import java.io.Serializable;
  * Table enforces a unique constraint of the combination of userid and roleid.
  * These two together form the primary key.
  * <p>
- * When you have a compound primary key, you must implement Serializable for Hibernate
- * When you implement Serializable you must implement equals and hash code
+ * When you have a compound primary key, you must implement Serializable for Hibernate.
+ * The key itself, UserRolesId, implements equals and hash code.
+ * <p>
+ * A user role keeps Object's equals and hash code, so it is only equal to itself. Its ids cannot be used: a new
+ * user has no userid until it is saved, and a user role added to its roles before then would change its hash
+ * while in the set. Within a transaction Hibernate keeps one user role per row, so the sets it loads hold no
+ * duplicates. Code building a user's roles must add each role only once, and must test for a role by its
+ * roleid rather than with contains on a new user role.
  */
 @Entity
 @Table(name = "userroles")
@@ -107,27 +113,4 @@ public class UserRoles
     {
         this.role = role;
     }
-
-    @Override
-    public boolean equals(Object o)
-    {
-        if (this == o)
-        {
-            return true;
-        }
-        if (!(o instanceof UserRoles))
-        {
-            return false;
-        }
-        UserRoles that = (UserRoles) o;
-        return ((user == null) ? 0 : user.getUserid()) == ((that.user == null) ? 0 : that.user.getUserid()) &&
-                ((role == null) ? 0 : role.getRoleid()) == ((that.role == null) ? 0 : that.role.getRoleid());
-    }
-
-    @Override
-    public int hashCode()
-    {
-        // return Objects.hash(user.getUserid(), role.getRoleid());
-        return 37;
-    }
 }
@@ -2,6 +2,7 @@ package com.lambdaschool.usermodel.models;
 
 import javax.persistence.Embeddable;
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Class to represent the complex primary key for UserRoles
@@ -86,6 +87,7 @@ public class UserRolesId
     @Override
     public int hashCode()
     {
-        return 37;
+        return Objects.hash(user,
+                            role);
     }
 }
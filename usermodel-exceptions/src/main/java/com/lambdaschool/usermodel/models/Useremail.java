@@ -1,6 +1,8 @@
 package com.lambdaschool.usermodel.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -23,10 +25,17 @@ public class Useremail
         extends Auditable
 {
     /**
-     * The primary key (long) of the useremails table
+     * The primary key (long) of the useremails table. Generated from the useremails_seq sequence.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE,
+            generator = "useremails_seq")
+    @GenericGenerator(name = "useremails_seq",
+            strategy = "com.lambdaschool.usermodel.config.PooledLoSequenceGenerator",
+            parameters = {@Parameter(name = "sequence_name",
+                    value = "useremails_seq"),
+                    @Parameter(name = "increment_size",
+                            value = "50")})
     private long useremailid;
 
     /**
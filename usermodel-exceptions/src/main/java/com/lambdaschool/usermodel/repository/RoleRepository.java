@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * The CRUD Repository connecting Role to the rest of the application
  */
@@ -36,4 +38,11 @@ public interface RoleRepository
             long roleid,
             String name);
 
+    /**
+     * Reads the primary key of every role without loading the Role entities
+     *
+     * @return List of all roleids (Long)
+     */
+    @Query(value = "SELECT r.roleid FROM Role r")
+    List<Long> findAllRoleids();
 }
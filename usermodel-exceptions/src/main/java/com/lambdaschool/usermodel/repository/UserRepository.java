@@ -1,9 +1,19 @@
 package com.lambdaschool.usermodel.repository;
 
 import com.lambdaschool.usermodel.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * The CRUD repository connecting User to the rest of the application
@@ -19,6 +29,27 @@ public interface UserRepository
      */
     User findByUsername(String username);
 
+    /**
+     * Find a user based off of username, loading the user's roles in the same query.
+     * Useremails are a list, so joining them as well would repeat each email once per role;
+     * they are loaded with one more query when first used.
+     *
+     * @param username the name (String) of user you seek
+     * @return the user object with the name you seek including roles, or null
+     */
+    @EntityGraph(attributePaths = {"roles", "roles.role"})
+    User findDistinctByUsername(String username);
+
+    /**
+     * Find a user based off of userid, loading the user's roles in the same query.
+     * See findDistinctByUsername for why useremails are not joined.
+     *
+     * @param userid the primary key (long) of the user you seek
+     * @return Optional of the user you seek including roles
+     */
+    @EntityGraph(attributePaths = {"roles", "roles.role"})
+    Optional<User> findDistinctByUserid(long userid);
+
     /**
      * Find all users whose name contains a given substring ignoring case
      *
@@ -26,4 +57,53 @@ public interface UserRepository
      * @return List of users whose name contain the given substring ignoring case
      */
     List<User> findByUsernameContainingIgnoreCase(String name);
+
+    /**
+     * Keyset, seek, query used to walk the users table one page at a time.
+     * Only users whose primary key is greater than the given userid are returned, ordered by userid.
+     * The pageable should always request the first page so that no OFFSET is sent to the database.
+     *
+     * @param userid   the last userid (long) the client has already seen. Use 0 for the first page
+     * @param pageable the number of users to return. Always page 0
+     * @return List of at most pageable.getPageSize() users following the given userid
+     */
+    List<User> findByUseridGreaterThanOrderByUseridAsc(
+            long userid,
+            Pageable pageable);
+
+    /**
+     * Reads all users through a database cursor rather than loading them into a list.
+     * Must be called inside a transaction and the stream must be closed when done.
+     * Users are fetched from the database in blocks of the fetch size and are read only.
+     *
+     * @return Stream of all users ordered by userid
+     */
+    @QueryHints(value = {@QueryHint(name = HINT_FETCH_SIZE,
+            value = "500"),
+            @QueryHint(name = HINT_READONLY,
+                    value = "true")})
+    @Query(value = "SELECT u FROM User u ORDER BY u.userid")
+    Stream<User> streamAllBy();
+
+    /**
+     * Reads just the userid and username of every user, without loading the User entities.
+     * Used to build the in memory username index. Must be called inside a transaction and the stream must be closed.
+     *
+     * @return Stream of two element arrays holding userid (Long) and username (String)
+     */
+    @QueryHints(value = {@QueryHint(name = HINT_FETCH_SIZE,
+            value = "500")})
+    @Query(value = "SELECT u.userid, u.username FROM User u")
+    Stream<Object[]> streamUseridAndUsername();
+
+    /**
+     * Reads the userid and roleid of every user role, without loading any entities.
+     * Used to build the in memory role membership index. Must be called inside a transaction and the stream must be closed.
+     *
+     * @return Stream of two element arrays holding userid (Long) and roleid (Long)
+     */
+    @QueryHints(value = {@QueryHint(name = HINT_FETCH_SIZE,
+            value = "500")})
+    @Query(value = "SELECT ur.user.userid, ur.role.roleid FROM UserRoles ur")
+    Stream<Object[]> streamUseridAndRoleid();
 }
@@ -0,0 +1,39 @@
+package com.lambdaschool.usermodel.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers a change to an in memory structure, such as a cache or an index, until the current transaction commits,
+ * so the structure never holds data that was rolled back
+ */
+public final class AfterCommit
+{
+    private AfterCommit()
+    {
+    }
+
+    /**
+     * Runs the given change once the current transaction commits. If there is no transaction, the change is run now.
+     * A transaction that rolls back never runs the change.
+     *
+     * @param change the change to run
+     */
+    public static void run(Runnable change)
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    change.run();
+                }
+            });
+        } else
+        {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.CountryData;
+import com.lambdaschool.usermodel.models.CountryPrefetch;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The service that gets country data from the remote countries API.
+ * <p>
+ * Country data is cached per country code. An entry older than the refresh time is still served while a fresh copy
+ * is fetched in the background; an entry older than the time to live is fetched again before it is served.
+ * Only one fetch per country code is ever in flight, callers asking for the same code share it.
+ */
+public interface CountryDataService
+{
+    /**
+     * Returns the data for the given country
+     *
+     * @param countrycode The country code (String) of the country you seek. For example usa, mex, ca, fin. Case does not matter.
+     * @return The data for the country
+     * @throws com.lambdaschool.usermodel.exceptions.ResourceNotFoundException if the countries API does not know the code
+     * @throws com.lambdaschool.usermodel.exceptions.BadRequestException if the countries API refuses the code
+     */
+    CountryData findByCode(String countrycode);
+
+    /**
+     * Returns the data for the given country without blocking the calling thread.
+     * A cached country completes at once. Otherwise the countries API is called through a non blocking client,
+     * and the result is added to the cache.
+     *
+     * @param countrycode The country code (String) of the country you seek. Case does not matter.
+     * @return A future completed with the data for the country. It fails with a ResourceNotFoundException if the
+     * countries API does not know the code, with a BadRequestException if it refuses the code, or with a ServiceUnavailableException if too many calls are already
+     * in progress or the countries API does not answer in time.
+     */
+    CompletableFuture<CountryData> findByCodeAsync(String countrycode);
+
+    /**
+     * Loads the given countries into the cache. Each code is reported once: straight away if it is already cached,
+     * otherwise when its fetch completes. A limited number of fetches run at once and the rest wait their turn.
+     * Codes are compared ignoring case, so each country is reported only once.
+     *
+     * @param countrycodes The country codes (String) to load
+     * @param listener     Told what happened to each country code. May be called from several threads, one at a time per code.
+     * @return A future completed once every country code has been reported
+     */
+    CompletableFuture<Void> prefetch(
+            Collection<String> countrycodes,
+            Consumer<CountryPrefetch> listener);
+
+    /**
+     * Loads the data for the given country and remembers it as the most recently populated country
+     *
+     * @param countrycode The country code (String) of the country to load. Case does not matter.
+     * @return The data for the country
+     * @throws com.lambdaschool.usermodel.exceptions.ResourceNotFoundException if the countries API does not know the code
+     * @throws com.lambdaschool.usermodel.exceptions.BadRequestException if the countries API refuses the code
+     */
+    CountryData populate(String countrycode);
+
+    /**
+     * Returns the most recently populated country
+     *
+     * @return The data for the country most recently passed to populate, or empty if no country has been populated
+     */
+    Optional<CountryData> findLatest();
+
+    /**
+     * Reports how well the country cache is doing
+     *
+     * @return Map of statistic name (String) to value. Includes size, hitCount, missCount, loadSuccessCount,
+     * loadFailureCount, averageLoadPenaltyMillis and circuitBreakerState.
+     */
+    Map<String, Object> getStatistics();
+}
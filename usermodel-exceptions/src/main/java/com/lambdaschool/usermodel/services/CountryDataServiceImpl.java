@@ -0,0 +1,674 @@
+package com.lambdaschool.usermodel.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.lambdaschool.usermodel.exceptions.BadRequestException;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.exceptions.ServiceUnavailableException;
+import com.lambdaschool.usermodel.models.CountryData;
+import com.lambdaschool.usermodel.models.CountryPrefetch;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Implements the CountryDataService Interface with a Caffeine loading cache in front of the countries API
+ */
+@Service(value = "countryDataService")
+public class CountryDataServiceImpl
+        implements CountryDataService
+{
+    /**
+     * The response type expected from the countries API
+     */
+    private static final ParameterizedTypeReference<CountryData> COUNTRY_DATA_TYPE = new ParameterizedTypeReference<>()
+    {
+    };
+
+    /**
+     * Why a call was refused while the circuit breaker is open
+     */
+    private static final String UNAVAILABLE = "Countries API is unavailable, try again later";
+
+    /**
+     * The shared client for the countries API, see CountryApiConfig
+     */
+    private final RestTemplate restTemplate;
+
+    /**
+     * The url of the countries API. The country code is added to the end.
+     */
+    private final String countryApiUrl;
+
+    /**
+     * Refuses calls to the countries API while it is failing or slow, see CountryApiConfig
+     */
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Limits how many blocking calls to the countries API may be in progress at once, see CountryApiConfig
+     */
+    private final Bulkhead bulkhead;
+
+    /**
+     * The non blocking client for the countries API, see CountryApiConfig
+     */
+    private final HttpClient asyncHttpClient;
+
+    /**
+     * Reads the responses received by the non blocking client
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * How long an asynchronous call waits for the countries API to answer
+     */
+    private final Duration asyncTimeout;
+
+    /**
+     * Limits how many asynchronous calls to the countries API may be in progress at once
+     */
+    private final Semaphore asyncCalls;
+
+    /**
+     * The asynchronous fetches in progress, keyed by lowercase country code
+     */
+    private final ConcurrentMap<String, CompletableFuture<CountryData>> asyncFetches = new ConcurrentHashMap<>();
+
+    /**
+     * The most fetches a single prefetch runs at once
+     */
+    private final int prefetchParallelism;
+
+    /**
+     * Times each country code of a prefetch, by outcome
+     */
+    private final Map<CountryPrefetch.Outcome, Timer> prefetchTimers = new EnumMap<>(CountryPrefetch.Outcome.class);
+
+    /**
+     * Runs the background refreshes of the cache, which block on the countries API. Without it they would run on
+     * the common fork join pool, which has a thread per processor and is shared by every parallel stream.
+     */
+    private final ExecutorService refreshExecutor;
+
+    /**
+     * Country data keyed by lowercase country code
+     */
+    private final LoadingCache<String, CountryData> countries;
+
+    /**
+     * The most recently populated country. Any request thread may set or read it.
+     */
+    private final AtomicReference<CountryData> latest = new AtomicReference<>();
+
+    /**
+     * Creates the service and its cache
+     *
+     * @param restTemplate        the client used to call the countries API
+     * @param circuitBreaker      refuses calls while the countries API is failing or slow
+     * @param bulkhead            limits the blocking calls in progress at once
+     * @param asyncHttpClient     the non blocking client used by the asynchronous lookups
+     * @param objectMapper        reads the responses of the non blocking client
+     * @param countryApiUrl       the url (String) of the countries API
+     * @param readTimeout         how long (long), in milliseconds, an asynchronous call waits for an answer
+     * @param asyncMaxCalls       the most asynchronous calls (int) in progress at once
+     * @param prefetchParallelism the most fetches (int) a single prefetch runs at once
+     * @param meterRegistry       where the prefetch timings are published
+     * @param maximumSize         the most countries (long) kept in the cache
+     * @param refreshSeconds      how long (long), in seconds, an entry is served before it is refreshed in the background
+     * @param refreshThreads      the most background refreshes (int) run at once
+     * @param ttlSeconds          how long (long), in seconds, an entry may be served at all
+     */
+    public CountryDataServiceImpl(
+            @Qualifier("countryRestTemplate")
+                    RestTemplate restTemplate,
+            @Qualifier("countryCircuitBreaker")
+                    CircuitBreaker circuitBreaker,
+            @Qualifier("countryBulkhead")
+                    Bulkhead bulkhead,
+            @Qualifier("countryAsyncHttpClient")
+                    HttpClient asyncHttpClient,
+            ObjectMapper objectMapper,
+            @Value("${country.api.url:https://restcountries.eu/rest/v2/alpha/}")
+                    String countryApiUrl,
+            @Value("${country.api.read-timeout-ms:5000}")
+                    long readTimeout,
+            @Value("${country.api.async-max-calls:50}")
+                    int asyncMaxCalls,
+            @Value("${country.prefetch.parallelism:8}")
+                    int prefetchParallelism,
+            MeterRegistry meterRegistry,
+            @Value("${country.cache.maximum-size:500}")
+                    long maximumSize,
+            @Value("${country.cache.refresh-seconds:600}")
+                    long refreshSeconds,
+            @Value("${country.cache.refresh-threads:2}")
+                    int refreshThreads,
+            @Value("${country.cache.ttl-seconds:3600}")
+                    long ttlSeconds)
+    {
+        this.restTemplate = restTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.asyncHttpClient = asyncHttpClient;
+        this.objectMapper = objectMapper;
+        this.countryApiUrl = countryApiUrl;
+        this.asyncTimeout = Duration.ofMillis(readTimeout);
+        this.asyncCalls = new Semaphore(asyncMaxCalls);
+        this.prefetchParallelism = prefetchParallelism;
+        for (CountryPrefetch.Outcome outcome : CountryPrefetch.Outcome.values())
+        {
+            prefetchTimers.put(outcome,
+                               Timer.builder("usermodel.country.prefetch")
+                                       .description("Time taken by each country code of a prefetch")
+                                       .tag("outcome",
+                                            outcome.name())
+                                       .register(meterRegistry));
+        }
+        // each cached country has at most one refresh waiting, so the queue only fills if the countries API
+        // stalls. A refresh refused then is logged by Caffeine, and the entry is refreshed on a later read.
+        AtomicInteger refreshThreadNumber = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads,
+                                                 refreshThreads,
+                                                 0L,
+                                                 TimeUnit.MILLISECONDS,
+                                                 new ArrayBlockingQueue<>((int) maximumSize),
+                                                 r ->
+                                                 {
+                                                     Thread thread = new Thread(r,
+                                                                                "country-refresh-" + refreshThreadNumber.incrementAndGet());
+                                                     thread.setDaemon(true);
+                                                     return thread;
+                                                 });
+        // a loading cache runs one load per key and has every other caller for that key wait on it.
+        // Once refreshAfterWrite passes, the next read gets the old value and starts a reload in the background.
+        // If the reload fails the old value is kept until expireAfterWrite removes it.
+        countries = Caffeine.newBuilder()
+                .executor(refreshExecutor)
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(this::fetch);
+    }
+
+    /**
+     * Stops the background refreshes when the application stops
+     */
+    @PreDestroy
+    public void shutdown()
+    {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public CountryData findByCode(String countrycode)
+    {
+        return countries.get(countrycode.toLowerCase());
+    }
+
+    @Override
+    public CompletableFuture<CountryData> findByCodeAsync(String countrycode)
+    {
+        String key = countrycode.toLowerCase();
+        CountryData cached = countries.getIfPresent(key);
+        if (cached != null)
+        {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return fetchShared(key);
+    }
+
+    @Override
+    public CompletableFuture<Void> prefetch(
+            Collection<String> countrycodes,
+            Consumer<CountryPrefetch> listener)
+    {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String countrycode : countrycodes)
+        {
+            keys.add(countrycode.toLowerCase());
+        }
+
+        Prefetch prefetch = new Prefetch(keys,
+                                         listener);
+        if (keys.isEmpty())
+        {
+            prefetch.done.complete(null);
+        }
+        // each of these runs through the queue, one fetch at a time, until the queue is empty
+        for (int i = 0; i < Math.min(prefetchParallelism,
+                                     keys.size()); i++)
+        {
+            prefetchNext(prefetch);
+        }
+        return prefetch.done;
+    }
+
+    /**
+     * Takes country codes off the queue of a prefetch until one has to be fetched. The next code is taken once
+     * that fetch completes, so each call keeps at most one fetch running.
+     *
+     * @param prefetch the prefetch to work on
+     */
+    private void prefetchNext(Prefetch prefetch)
+    {
+        String key;
+        while ((key = prefetch.pending.poll()) != null)
+        {
+            long start = System.nanoTime();
+            CountryData cached = countries.getIfPresent(key);
+            if (cached != null)
+            {
+                report(prefetch,
+                       key,
+                       CountryPrefetch.Outcome.CACHED,
+                       cached,
+                       null,
+                       start);
+                continue;
+            }
+
+            String fetchedKey = key;
+            CompletableFuture<CountryData> fetch = fetchShared(key);
+            if (fetch.isDone())
+            {
+                // refused straight away, for example because too many calls are in progress. Carry on with the
+                // queue in this loop rather than from the callback, so a long run of refusals does not nest.
+                fetch.whenComplete((countryData, ex) -> report(prefetch,
+                                                               fetchedKey,
+                                                               countryData,
+                                                               ex,
+                                                               start));
+                continue;
+            }
+
+            fetch.whenComplete((countryData, ex) ->
+                               {
+                                   report(prefetch,
+                                          fetchedKey,
+                                          countryData,
+                                          ex,
+                                          start);
+                                   prefetchNext(prefetch);
+                               });
+            return;
+        }
+    }
+
+    /**
+     * Reports how the fetch of one country code of a prefetch went
+     */
+    private void report(
+            Prefetch prefetch,
+            String key,
+            CountryData countryData,
+            Throwable ex,
+            long start)
+    {
+        Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+        CountryPrefetch.Outcome outcome;
+        if (cause == null)
+        {
+            outcome = CountryPrefetch.Outcome.FETCHED;
+        } else if (cause instanceof ResourceNotFoundException)
+        {
+            outcome = CountryPrefetch.Outcome.NOT_FOUND;
+        } else
+        {
+            outcome = CountryPrefetch.Outcome.FAILED;
+        }
+        report(prefetch,
+               key,
+               outcome,
+               countryData,
+               cause,
+               start);
+    }
+
+    /**
+     * Reports what happened to one country code of a prefetch, and completes the prefetch after its last code
+     */
+    private void report(
+            Prefetch prefetch,
+            String key,
+            CountryPrefetch.Outcome outcome,
+            CountryData countryData,
+            Throwable cause,
+            long start)
+    {
+        long nanos = System.nanoTime() - start;
+        prefetchTimers.get(outcome)
+                .record(nanos,
+                        TimeUnit.NANOSECONDS);
+
+        try
+        {
+            prefetch.listener.accept(new CountryPrefetch(key,
+                                                         outcome,
+                                                         (countryData == null) ? null : countryData.getName(),
+                                                         nanos / 1_000_000.0,
+                                                         (cause == null) ? null : cause.getMessage()));
+        } finally
+        {
+            if (prefetch.remaining.decrementAndGet() == 0)
+            {
+                prefetch.done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Fetches a country without blocking, sharing the fetch with anyone else asking for the same country meanwhile
+     *
+     * @param key the lowercase country code (String)
+     * @return a future completed with the data for the country, and which the caller may cancel without harm
+     */
+    private CompletableFuture<CountryData> fetchShared(String key)
+    {
+        // callers asking for the same country while it is being fetched share the one call
+        CompletableFuture<CountryData> fetch = new CompletableFuture<>();
+        CompletableFuture<CountryData> inProgress = asyncFetches.putIfAbsent(key,
+                                                                             fetch);
+        if (inProgress != null)
+        {
+            return inProgress.copy();
+        }
+
+        fetchAsync(key).whenComplete((countryData, ex) ->
+                                     {
+                                         // cache the country before letting go of the fetch so no caller misses both
+                                         if (ex == null)
+                                         {
+                                             countries.put(key,
+                                                           countryData);
+                                         }
+                                         asyncFetches.remove(key,
+                                                             fetch);
+                                         if (ex == null)
+                                         {
+                                             fetch.complete(countryData);
+                                         } else
+                                         {
+                                             fetch.completeExceptionally((ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex);
+                                         }
+                                     });
+        // a caller cancelling its copy does not cancel the fetch other callers are waiting on
+        return fetch.copy();
+    }
+
+    @Override
+    public CountryData populate(String countrycode)
+    {
+        CountryData countryData = findByCode(countrycode);
+        latest.set(countryData);
+        return countryData;
+    }
+
+    @Override
+    public Optional<CountryData> findLatest()
+    {
+        return Optional.ofNullable(latest.get());
+    }
+
+    @Override
+    public Map<String, Object> getStatistics()
+    {
+        CacheStats stats = countries.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size",
+                       countries.estimatedSize());
+        statistics.put("hitCount",
+                       stats.hitCount());
+        statistics.put("missCount",
+                       stats.missCount());
+        statistics.put("loadSuccessCount",
+                       stats.loadSuccessCount());
+        statistics.put("loadFailureCount",
+                       stats.loadFailureCount());
+        statistics.put("averageLoadPenaltyMillis",
+                       stats.averageLoadPenalty() / 1_000_000.0);
+        statistics.put("circuitBreakerState",
+                       circuitBreaker.getState()
+                               .name());
+        return statistics;
+    }
+
+    /**
+     * Gets a country from the countries API. Called by the cache only.
+     *
+     * @param countrycode the lowercase country code (String)
+     * @return the data for the country
+     */
+    private CountryData fetch(String countrycode)
+    {
+        try
+        {
+            // the bulkhead is outside the circuit breaker so a refused call is not counted as a failure of the countries API
+            return bulkhead.executeSupplier(() -> circuitBreaker.executeSupplier(() -> call(countrycode)));
+        } catch (BulkheadFullException e)
+        {
+            throw new ServiceUnavailableException("Too many calls to the countries API in progress",
+                                                  e);
+        } catch (CallNotPermittedException e)
+        {
+            throw new ServiceUnavailableException(UNAVAILABLE,
+                                                  e);
+        }
+    }
+
+    /**
+     * Calls the countries API through the RestTemplate, turning its exceptions into ours
+     *
+     * @param countrycode the lowercase country code (String)
+     * @return the data for the country
+     */
+    private CountryData call(String countrycode)
+    {
+        try
+        {
+            return restTemplate.exchange(countryApiUrl + "{countrycode}",
+                                         HttpMethod.GET,
+                                         null,
+                                         COUNTRY_DATA_TYPE,
+                                         countrycode)
+                    .getBody();
+        } catch (HttpClientErrorException.NotFound e)
+        {
+            throw new ResourceNotFoundException("Country code " + countrycode + " not found!");
+        } catch (HttpClientErrorException e)
+        {
+            // the countries API refused the code itself, which says nothing about its health
+            throw new BadRequestException("Countries API refused country code " + countrycode + " with status " + e.getRawStatusCode());
+        } catch (HttpStatusCodeException e)
+        {
+            throw new ServiceUnavailableException("Countries API answered with status " + e.getRawStatusCode(),
+                                                  e);
+        } catch (ResourceAccessException e)
+        {
+            if (e.getCause() instanceof SocketTimeoutException)
+            {
+                throw new ServiceUnavailableException("Countries API did not answer in time",
+                                                      e);
+            }
+            throw new ServiceUnavailableException("Countries API could not be reached",
+                                                  e);
+        }
+    }
+
+    /**
+     * Gets a country from the countries API without blocking. At most asyncMaxCalls of these run at once;
+     * any more fail straight away rather than queue up behind a slow countries API. The call is reported to the
+     * circuit breaker once it completes.
+     *
+     * @param countrycode the lowercase country code (String)
+     * @return a future completed with the data for the country
+     */
+    private CompletableFuture<CountryData> fetchAsync(String countrycode)
+    {
+        if (!asyncCalls.tryAcquire())
+        {
+            return CompletableFuture.failedFuture(new ServiceUnavailableException("Too many calls to the countries API in progress"));
+        }
+        if (!circuitBreaker.tryAcquirePermission())
+        {
+            asyncCalls.release();
+            return CompletableFuture.failedFuture(new ServiceUnavailableException(UNAVAILABLE));
+        }
+
+        long start = circuitBreaker.getCurrentTimestamp();
+        try
+        {
+            // expanded the same way the RestTemplate expands it so both clients call the same url
+            HttpRequest request = HttpRequest.newBuilder(restTemplate.getUriTemplateHandler()
+                                                                 .expand(countryApiUrl + "{countrycode}",
+                                                                         countrycode))
+                    .timeout(asyncTimeout)
+                    .GET()
+                    .build();
+            return asyncHttpClient.sendAsync(request,
+                                             HttpResponse.BodyHandlers.ofByteArray())
+                    .handle((response, ex) -> read(countrycode,
+                                                   response,
+                                                   ex))
+                    .whenComplete((countryData, ex) ->
+                                  {
+                                      asyncCalls.release();
+                                      long duration = circuitBreaker.getCurrentTimestamp() - start;
+                                      if (ex == null)
+                                      {
+                                          circuitBreaker.onSuccess(duration,
+                                                                   circuitBreaker.getTimestampUnit());
+                                      } else
+                                      {
+                                          circuitBreaker.onError(duration,
+                                                                 circuitBreaker.getTimestampUnit(),
+                                                                 (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex);
+                                      }
+                                  });
+        } catch (RuntimeException e)
+        {
+            asyncCalls.release();
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Turns the outcome of an asynchronous call to the countries API into country data or into one of our exceptions
+     *
+     * @param countrycode the lowercase country code (String)
+     * @param response    the response, or null if the call failed
+     * @param ex          why the call failed, or null if a response arrived
+     * @return the data for the country
+     */
+    private CountryData read(
+            String countrycode,
+            HttpResponse<byte[]> response,
+            Throwable ex)
+    {
+        if (ex != null)
+        {
+            Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            if (cause instanceof HttpTimeoutException)
+            {
+                throw new ServiceUnavailableException("Countries API did not answer in time",
+                                                      cause);
+            }
+            throw new ServiceUnavailableException("Countries API could not be reached",
+                                                  cause);
+        }
+
+        if (response.statusCode() == HttpStatus.NOT_FOUND.value())
+        {
+            throw new ResourceNotFoundException("Country code " + countrycode + " not found!");
+        }
+        if (response.statusCode() >= 400 && response.statusCode() < 500)
+        {
+            throw new BadRequestException("Countries API refused country code " + countrycode + " with status " + response.statusCode());
+        }
+        if (response.statusCode() >= 300)
+        {
+            throw new ServiceUnavailableException("Countries API answered with status " + response.statusCode());
+        }
+
+        try
+        {
+            return objectMapper.readValue(response.body(),
+                                          CountryData.class);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The state of one prefetch: the codes not yet started, who to report to and how many codes are left to report
+     */
+    private static final class Prefetch
+    {
+        private final Queue<String> pending;
+
+        private final Consumer<CountryPrefetch> listener;
+
+        private final AtomicInteger remaining;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Prefetch(
+                Collection<String> keys,
+                Consumer<CountryPrefetch> listener)
+        {
+            this.pending = new ConcurrentLinkedQueue<>(keys);
+            this.listener = listener;
+            this.remaining = new AtomicInteger(keys.size());
+        }
+    }
+}
@@ -1,50 +1,140 @@
 package com.lambdaschool.usermodel.services;
 
-import com.lambdaschool.usermodel.models.CountryData;
+import com.lambdaschool.usermodel.models.User;
 import com.lambdaschool.usermodel.models.ValidationError;
 import org.springframework.stereotype.Service;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 @Service(value = "helperFunctions")
 public class HelperFunctionsImpl
         implements HelperFunctions
 {
     /**
-     * A public field used to store data from another API. This will have to be populated each time the application is run.
-     * Population is done manually for each country code using an endpoint.
+     * How far down the cause chain to look. Spring and Hibernate wrap a violation a handful of levels deep;
+     * the limit also stops a chain that loops back on itself.
      */
-    public static CountryData ourCountryData = new CountryData();
+    private static final int MAX_CAUSE_DEPTH = 16;
 
     public List<ValidationError> getConstraintViolation(Throwable cause)
     {
         // Find any data violations that might be associated with the error and report them
         // data validations get wrapped in other exceptions as we work through the Spring
-        // exception chain. Hence we have to search the entire Spring Exception Stack
+        // exception chain. Hence we have to search the Spring Exception Stack
         // to see if we have any violation constraints.
-        while ((cause != null) && !(cause instanceof ConstraintViolationException))
+        List<ValidationError> listVE = new ArrayList<>();
+
+        for (int depth = 0; (cause != null) && (depth < MAX_CAUSE_DEPTH); depth++)
         {
+            if (cause instanceof ConstraintViolationException)
+            {
+                for (ConstraintViolation cv : ((ConstraintViolationException) cause).getConstraintViolations())
+                {
+                    ValidationError newVe = new ValidationError();
+                    newVe.setCode(invalidValue(cv.getInvalidValue()));
+                    newVe.setMessage(cv.getMessage());
+                    listVE.add(newVe);
+                }
+                return listVE;
+            }
+            if (cause instanceof org.hibernate.exception.ConstraintViolationException)
+            {
+                addUniqueViolation(((org.hibernate.exception.ConstraintViolationException) cause).getConstraintName(),
+                                   listVE);
+                return listVE;
+            }
             cause = cause.getCause();
         }
+        return listVE;
+    }
 
-        List<ValidationError> listVE = new ArrayList<>();
+    /**
+     * Describes the value that failed validation. A collection, such as a batch of users that is too large, is
+     * described by its size rather than by echoing every element back to the client.
+     *
+     * @param invalidValue the value (Object) that failed validation. May be null.
+     * @return the description (String) reported as the code of the validation error
+     */
+    private static String invalidValue(Object invalidValue)
+    {
+        if (invalidValue instanceof Collection)
+        {
+            return "size " + ((Collection<?>) invalidValue).size();
+        }
+        return String.valueOf(invalidValue);
+    }
 
-        // we know that cause either null or an instance of ConstraintViolationException
-        if (cause != null)
+    /**
+     * Reports a database unique constraint failure on one of our known constraints as a validation error.
+     * The constraint name is the one the Hibernate dialect already pulled out of the database error, which
+     * for H2 also carries the index and table, so we look for our name within it.
+     *
+     * @param constraintName the violated constraint (String) as reported by Hibernate. May be null.
+     * @param listVE         the list to add the validation error to
+     */
+    private static void addUniqueViolation(
+            String constraintName,
+            List<ValidationError> listVE)
+    {
+        if (constraintName == null)
+        {
+            return;
+        }
+
+        String name = constraintName.toUpperCase(Locale.ROOT);
+        for (UniqueConstraint unique : UniqueConstraint.values())
         {
-            ConstraintViolationException ex = (ConstraintViolationException) cause;
-            for (ConstraintViolation cv : ex.getConstraintViolations())
+            if (name.contains(unique.constraintName))
             {
                 ValidationError newVe = new ValidationError();
-                newVe.setCode(cv.getInvalidValue()
-                                      .toString());
-                newVe.setMessage(cv.getMessage());
+                newVe.setCode(unique.field);
+                newVe.setMessage(unique.message);
                 listVE.add(newVe);
+                return;
             }
         }
-        return listVE;
+    }
+
+    /**
+     * The unique constraints we report as validation errors
+     */
+    private enum UniqueConstraint
+    {
+        USERNAME(User.USERNAME_CONSTRAINT,
+                 "username",
+                 "username is already taken"),
+        PRIMARYEMAIL(User.PRIMARYEMAIL_CONSTRAINT,
+                     "primaryemail",
+                     "primaryemail is already in use");
+
+        /**
+         * The constraint name, upper cased as the database reports it
+         */
+        private final String constraintName;
+
+        /**
+         * The field the constraint is on, reported as the code of the validation error
+         */
+        private final String field;
+
+        /**
+         * The message of the validation error
+         */
+        private final String message;
+
+        UniqueConstraint(
+                String constraintName,
+                String field,
+                String message)
+        {
+            this.constraintName = constraintName.toUpperCase(Locale.ROOT);
+            this.field = field;
+            this.message = message;
+        }
     }
 }
@@ -0,0 +1,51 @@
+package com.lambdaschool.usermodel.services;
+
+import java.util.Optional;
+
+/**
+ * An in memory catalog of the roles, used to resolve role ids and names without going to the database.
+ * <p>
+ * Roles rarely change, so lookups read an immutable snapshot without locking. A change builds a new snapshot
+ * and swaps it in. Changes made inside a transaction are applied once that transaction commits. Until then,
+ * callers should fall back to the database for roles the catalog does not know yet.
+ */
+public interface RoleCatalog
+{
+    /**
+     * Tells whether a role with the given primary key exists
+     *
+     * @param roleid The primary key (long) of the role
+     * @return true if the catalog holds the role
+     */
+    boolean containsRoleid(long roleid);
+
+    /**
+     * Finds the primary key of the role with the given name
+     *
+     * @param name The name (String) of the role. Case does not matter.
+     * @return The roleid (Long) of the role, or empty if the catalog does not hold a role with that name
+     */
+    Optional<Long> findRoleidByName(String name);
+
+    /**
+     * Adds a role to the catalog or renames a role already in the catalog
+     *
+     * @param roleid The primary key (long) of the role
+     * @param name   The current name (String) of the role
+     */
+    void put(
+            long roleid,
+            String name);
+
+    /**
+     * Removes all roles from the catalog
+     */
+    void clear();
+
+    /**
+     * Throws away the current catalog and loads a new one from the roles table
+     *
+     * @return The number (int) of roles now in the catalog
+     */
+    int reload();
+}
@@ -0,0 +1,134 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.repository.RoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implements the RoleCatalog Interface
+ */
+@Service(value = "roleCatalog")
+public class RoleCatalogImpl
+        implements RoleCatalog
+{
+    private static final Logger logger = LoggerFactory.getLogger(RoleCatalogImpl.class);
+
+    /**
+     * Connects this catalog to the Role table. Only used when reloading the catalog.
+     */
+    @Autowired
+    private RoleRepository rolerepos;
+
+    /**
+     * The current snapshot. Readers take whatever snapshot is here; writers replace it.
+     */
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap());
+
+    @Override
+    public boolean containsRoleid(long roleid)
+    {
+        return snapshot.names.containsKey(roleid);
+    }
+
+    @Override
+    public Optional<Long> findRoleidByName(String name)
+    {
+        return Optional.ofNullable(snapshot.ids.get(fold(name)));
+    }
+
+    @Override
+    public void put(
+            long roleid,
+            String name)
+    {
+        AfterCommit.run(() -> doPut(roleid,
+                                    name));
+    }
+
+    @Override
+    public void clear()
+    {
+        AfterCommit.run(() -> swap(Collections.emptyMap()));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public synchronized int reload()
+    {
+        // synchronized like doPut, so a role put while the roles are being read waits and is applied on top,
+        // rather than being lost to a snapshot read before it
+        Map<Long, String> names = new HashMap<>();
+        for (Role r : rolerepos.findAll())
+        {
+            names.put(r.getRoleid(),
+                      r.getName());
+        }
+        swap(names);
+        return names.size();
+    }
+
+    /**
+     * Loads the catalog from the database once the application, including any seed data, is ready
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadOnStartup()
+    {
+        int count = reload();
+        logger.info("Role catalog loaded with " + count + " roles");
+    }
+
+    /**
+     * Copies the current names, applies the change and swaps the copy in.
+     * Synchronized so two writers cannot both copy the same snapshot and lose one of the changes.
+     */
+    private synchronized void doPut(
+            long roleid,
+            String name)
+    {
+        Map<Long, String> names = new HashMap<>(snapshot.names);
+        names.put(roleid,
+                  name);
+        swap(names);
+    }
+
+    private synchronized void swap(Map<Long, String> names)
+    {
+        snapshot = new Snapshot(names);
+    }
+
+    private static String fold(String name)
+    {
+        return name.toLowerCase();
+    }
+
+    /**
+     * An immutable view of all roles, by id and by case folded name
+     */
+    private static final class Snapshot
+    {
+        private final Map<Long, String> names;
+
+        private final Map<String, Long> ids;
+
+        private Snapshot(Map<Long, String> names)
+        {
+            Map<String, Long> ids = new HashMap<>();
+            names.forEach((roleid, name) -> ids.put(fold(name),
+                                                    roleid));
+            this.names = Collections.unmodifiableMap(new HashMap<>(names));
+            this.ids = Collections.unmodifiableMap(ids);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.lambdaschool.usermodel.services;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An in memory index of which users hold which roles, used to answer membership questions without loading
+ * Role.users or any UserRoles entities.
+ * <p>
+ * Each role keeps its userids in a compressed (Roaring) bitmap, so intersections and unions of roles are
+ * done on the bitmaps directly.
+ * <p>
+ * Changes made inside a transaction are applied to the index once that transaction commits.
+ */
+public interface RoleMembershipIndex
+{
+    /**
+     * Returns the users holding the given role
+     *
+     * @param roleid The primary key (long) of the role
+     * @return List of userids (Long), in ascending order, of the users holding the role. If none, empty list.
+     */
+    List<Long> findUseridsInRole(long roleid);
+
+    /**
+     * Returns the users holding every one of the given roles
+     *
+     * @param roleids The primary keys (Long) of the roles
+     * @return List of userids (Long), in ascending order, of the users holding all of the roles
+     */
+    List<Long> findUseridsInAllRoles(Collection<Long> roleids);
+
+    /**
+     * Returns the users holding at least one of the given roles
+     *
+     * @param roleids The primary keys (Long) of the roles
+     * @return List of userids (Long), in ascending order, of the users holding any of the roles
+     */
+    List<Long> findUseridsInAnyRole(Collection<Long> roleids);
+
+    /**
+     * Counts the users holding the given role
+     *
+     * @param roleid The primary key (long) of the role
+     * @return The number (long) of users holding the role
+     */
+    long countUsersInRole(long roleid);
+
+    /**
+     * Counts the users holding every one of the given roles
+     *
+     * @param roleids The primary keys (Long) of the roles
+     * @return The number (long) of users holding all of the roles
+     */
+    long countUsersInAllRoles(Collection<Long> roleids);
+
+    /**
+     * Counts the users holding at least one of the given roles
+     *
+     * @param roleids The primary keys (Long) of the roles
+     * @return The number (long) of users holding any of the roles
+     */
+    long countUsersInAnyRole(Collection<Long> roleids);
+
+    /**
+     * Adds a role, with no users, to the index. A role already in the index keeps its users.
+     *
+     * @param roleid The primary key (long) of the role
+     */
+    void putRole(long roleid);
+
+    /**
+     * Replaces the roles held by a user
+     *
+     * @param userid  The primary key (long) of the user
+     * @param roleids The primary keys (Long) of all the roles the user now holds
+     */
+    void setUserRoles(
+            long userid,
+            Collection<Long> roleids);
+
+    /**
+     * Removes a user from every role
+     *
+     * @param userid The primary key (long) of the user to remove
+     */
+    void removeUser(long userid);
+
+    /**
+     * Removes every user from every role. The roles stay in the index.
+     */
+    void removeAllUsers();
+
+    /**
+     * Removes all roles and users from the index
+     */
+    void clear();
+
+    /**
+     * Throws away the current index and builds a new one from the roles and userroles tables
+     *
+     * @return The number (int) of roles now in the index
+     */
+    int rebuild();
+}
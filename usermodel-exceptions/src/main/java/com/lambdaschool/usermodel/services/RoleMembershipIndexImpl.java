@@ -0,0 +1,364 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.exceptions.BadRequestException;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.repository.RoleRepository;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Implements the RoleMembershipIndex Interface
+ */
+@Service(value = "roleMembershipIndex")
+public class RoleMembershipIndexImpl
+        implements RoleMembershipIndex
+{
+    private static final Logger logger = LoggerFactory.getLogger(RoleMembershipIndexImpl.class);
+
+    /**
+     * Connects this index to the User table. Only used when rebuilding the index.
+     */
+    @Autowired
+    private UserRepository userrepos;
+
+    /**
+     * Connects this index to the Role table. Only used when rebuilding the index.
+     */
+    @Autowired
+    private RoleRepository rolerepos;
+
+    /**
+     * The members of each role. Each roleid points to the bitmap of userids holding that role.
+     */
+    private final Map<Long, Roaring64NavigableMap> members = new HashMap<>();
+
+    /**
+     * Many queries may run at once. Changes wait for queries to finish.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public List<Long> findUseridsInRole(long roleid)
+    {
+        lock.readLock()
+                .lock();
+        try
+        {
+            return toList(bitmapFor(roleid));
+        } finally
+        {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    @Override
+    public List<Long> findUseridsInAllRoles(Collection<Long> roleids)
+    {
+        lock.readLock()
+                .lock();
+        try
+        {
+            return toList(intersect(roleids));
+        } finally
+        {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    @Override
+    public List<Long> findUseridsInAnyRole(Collection<Long> roleids)
+    {
+        lock.readLock()
+                .lock();
+        try
+        {
+            return toList(union(roleids));
+        } finally
+        {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    @Override
+    public long countUsersInRole(long roleid)
+    {
+        lock.readLock()
+                .lock();
+        try
+        {
+            return bitmapFor(roleid).getLongCardinality();
+        } finally
+        {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    @Override
+    public long countUsersInAllRoles(Collection<Long> roleids)
+    {
+        lock.readLock()
+                .lock();
+        try
+        {
+            return intersect(roleids).getLongCardinality();
+        } finally
+        {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    @Override
+    public long countUsersInAnyRole(Collection<Long> roleids)
+    {
+        lock.readLock()
+                .lock();
+        try
+        {
+            return union(roleids).getLongCardinality();
+        } finally
+        {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    @Override
+    public void putRole(long roleid)
+    {
+        AfterCommit.run(() -> doPutRole(roleid));
+    }
+
+    @Override
+    public void setUserRoles(
+            long userid,
+            Collection<Long> roleids)
+    {
+        Set<Long> held = new HashSet<>(roleids);
+        AfterCommit.run(() -> doSetUserRoles(userid,
+                                             held));
+    }
+
+    @Override
+    public void removeUser(long userid)
+    {
+        AfterCommit.run(() -> doSetUserRoles(userid,
+                                             new HashSet<>()));
+    }
+
+    @Override
+    public void removeAllUsers()
+    {
+        AfterCommit.run(this::doRemoveAllUsers);
+    }
+
+    @Override
+    public void clear()
+    {
+        AfterCommit.run(this::doClear);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public int rebuild()
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            doClear();
+            for (Long roleid : rolerepos.findAllRoleids())
+            {
+                doPutRole(roleid);
+            }
+            try (Stream<Object[]> rows = userrepos.streamUseridAndRoleid())
+            {
+                rows.forEach(row -> members.computeIfAbsent((Long) row[1],
+                                                            k -> new Roaring64NavigableMap())
+                        .addLong((Long) row[0]));
+            }
+            return members.size();
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    /**
+     * Builds the index from the database once the application, including any seed data, is ready
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup()
+    {
+        int count = rebuild();
+        logger.info("Role membership index built with " + count + " roles");
+    }
+
+    private void doPutRole(long roleid)
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            members.computeIfAbsent(roleid,
+                                    k -> new Roaring64NavigableMap());
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    private void doSetUserRoles(
+            long userid,
+            Set<Long> held)
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            // there are only a handful of roles so visiting each one is cheaper than tracking a user's old roles
+            for (Map.Entry<Long, Roaring64NavigableMap> e : members.entrySet())
+            {
+                if (held.contains(e.getKey()))
+                {
+                    e.getValue()
+                            .addLong(userid);
+                } else
+                {
+                    e.getValue()
+                            .removeLong(userid);
+                }
+            }
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    private void doRemoveAllUsers()
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            members.replaceAll((roleid, bitmap) -> new Roaring64NavigableMap());
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    private void doClear()
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            members.clear();
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    /**
+     * Finds the members of a role. Must be called while holding the read or write lock.
+     *
+     * @param roleid the primary key (long) of the role
+     * @return the bitmap of userids holding the role. Do not change it.
+     * @throws ResourceNotFoundException if the role is not in the index
+     */
+    private Roaring64NavigableMap bitmapFor(long roleid)
+    {
+        Roaring64NavigableMap bitmap = members.get(roleid);
+        if (bitmap == null)
+        {
+            throw new ResourceNotFoundException("Role id " + roleid + " not found!");
+        }
+        return bitmap;
+    }
+
+    /**
+     * Looks up the members of each of the given roles. Must be called while holding the read or write lock.
+     *
+     * @param roleids the primary keys (Long) of the roles
+     * @return the bitmaps of the roles, in the same order as roleids
+     * @throws BadRequestException       if no roles are given
+     * @throws ResourceNotFoundException if one of the roles is not in the index
+     */
+    private List<Roaring64NavigableMap> bitmapsFor(Collection<Long> roleids)
+    {
+        if (roleids.isEmpty())
+        {
+            throw new BadRequestException("No role ids given!");
+        }
+
+        List<Roaring64NavigableMap> bitmaps = new ArrayList<>(roleids.size());
+        for (Long roleid : roleids)
+        {
+            bitmaps.add(bitmapFor(roleid));
+        }
+        return bitmaps;
+    }
+
+    private Roaring64NavigableMap intersect(Collection<Long> roleids)
+    {
+        List<Roaring64NavigableMap> bitmaps = bitmapsFor(roleids);
+
+        // start from the smallest role so the working copy only ever shrinks from there
+        bitmaps.sort(Comparator.comparingLong(Roaring64NavigableMap::getLongCardinality));
+        Roaring64NavigableMap result = new Roaring64NavigableMap();
+        result.or(bitmaps.get(0));
+        for (int i = 1; (i < bitmaps.size()) && !result.isEmpty(); i++)
+        {
+            result.and(bitmaps.get(i));
+        }
+        return result;
+    }
+
+    private Roaring64NavigableMap union(Collection<Long> roleids)
+    {
+        Roaring64NavigableMap result = new Roaring64NavigableMap();
+        for (Roaring64NavigableMap bitmap : bitmapsFor(roleids))
+        {
+            result.or(bitmap);
+        }
+        return result;
+    }
+
+    private static List<Long> toList(Roaring64NavigableMap bitmap)
+    {
+        List<Long> userids = new ArrayList<>((int) bitmap.getLongCardinality());
+        bitmap.forEach(userids::add);
+        return userids;
+    }
+}
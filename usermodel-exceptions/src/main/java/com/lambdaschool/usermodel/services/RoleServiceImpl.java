@@ -11,6 +11,7 @@ import com.lambdaschool.usermodel.exceptions.ResourceFoundException;
 import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implements the RoleService Interface
@@ -38,6 +39,25 @@ public class RoleServiceImpl
     @Autowired
     private UserAuditing userAuditing;
 
+    /**
+     * Cached users include their roles, so changing roles evicts the cached users
+     */
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * Connects this service to the in memory index of which users hold which roles
+     */
+    @Autowired
+    private RoleMembershipIndex roleMembershipIndex;
+
+    /**
+     * Connects this service to the in memory role catalog, kept in step with every role change
+     */
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Transactional(readOnly = true)
     @Override
     public List<Role> findAll()
     {
@@ -53,6 +73,7 @@ public class RoleServiceImpl
     }
 
 
+    @Transactional(readOnly = true)
     @Override
     public Role findRoleById(long id)
     {
@@ -60,10 +81,14 @@ public class RoleServiceImpl
                 .orElseThrow(() -> new ResourceNotFoundException("Role id " + id + " not found!"));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Role findByName(String name)
     {
-        Role rr = rolerepos.findByNameIgnoreCase(name);
+        // a primary key lookup is cheaper than the case insensitive name search, so use the catalog's id when it has one
+        Optional<Long> roleid = roleCatalog.findRoleidByName(name);
+        Role rr = roleid.flatMap(rolerepos::findById)
+                .orElseGet(() -> rolerepos.findByNameIgnoreCase(name));
 
         if (rr != null)
         {
@@ -84,7 +109,11 @@ public class RoleServiceImpl
             throw new ResourceFoundException("User Roles are not updated through Role.");
         }
 
-        return rolerepos.save(role);
+        Role newRole = rolerepos.save(role);
+        roleMembershipIndex.putRole(newRole.getRoleid());
+        roleCatalog.put(newRole.getRoleid(),
+                        newRole.getName());
+        return newRole;
     }
 
     @Transactional
@@ -92,6 +121,9 @@ public class RoleServiceImpl
     public void deleteAll()
     {
         rolerepos.deleteAll();
+        roleMembershipIndex.clear();
+        roleCatalog.clear();
+        userCache.evictAll();
     }
 
     @Transactional
@@ -116,6 +148,9 @@ public class RoleServiceImpl
                                          .get(),
                                  id,
                                  role.getName());
+        roleCatalog.put(id,
+                        role.getName());
+        userCache.evictAll();
         return findRoleById(id);
     }
 }
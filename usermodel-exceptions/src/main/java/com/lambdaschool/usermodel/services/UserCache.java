@@ -0,0 +1,76 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.User;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * A bounded, in memory cache of users keyed by userid, plus a map from lowercase username to userid.
+ * <p>
+ * Cached users are detached from the database with their useremails and roles already loaded.
+ * They must only be read. Anything that changes a user, its useremails or its roles must evict that user.
+ */
+public interface UserCache
+{
+    /**
+     * Returns the cached user with the given userid, loading and caching it on a miss
+     *
+     * @param userid The primary key (long) of the user you seek
+     * @param loader Loads the user from the database on a cache miss
+     * @return The user you seek, or an empty Optional if the loader did not find one
+     */
+    Optional<User> getById(
+            long userid,
+            LongFunction<Optional<User>> loader);
+
+    /**
+     * Returns the userid cached for the given username
+     *
+     * @param username The username (String) of the user you seek. Case does not matter.
+     * @return The userid (Long) for that username, or an empty Optional on a cache miss
+     */
+    Optional<Long> getUseridByName(String username);
+
+    /**
+     * Returns the current generation of the cache. Note it before reading a user from the database to put here.
+     *
+     * @return The generation (long), moved on by every eviction
+     */
+    long generation();
+
+    /**
+     * Caches a user under both its userid and its username, unless a user was evicted since the user was loaded.
+     * The loaded user may then be out of date, so it is left out and the next read loads it again.
+     *
+     * @param user     The user to cache, with useremails and roles already loaded
+     * @param loadedAt The generation (long) noted before the user was read from the database
+     */
+    void put(
+            User user,
+            long loadedAt);
+
+    /**
+     * Removes a user from the cache, now and again when the current transaction commits.
+     * Users loaded before either removal and not yet put are then not cached.
+     *
+     * @param userid   The primary key (long) of the user to remove
+     * @param username The username (String) of the user to remove. May be null.
+     */
+    void evict(
+            long userid,
+            String username);
+
+    /**
+     * Removes every user from the cache, now and again when the current transaction commits, as in evict
+     */
+    void evictAll();
+
+    /**
+     * Reports how the cache is performing
+     *
+     * @return Map of statistic name (String) to value - hits, misses, evictions and size for each cache
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,188 @@
+package com.lambdaschool.usermodel.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.lambdaschool.usermodel.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Implements the UserCache Interface using Caffeine, a size bounded cache with W-TinyLFU eviction.
+ * <p>
+ * A reader loads a user outside the cache, so a write can commit, and evict the user, while the reader still
+ * holds the old row. To keep that row out of the cache, every eviction moves the cache on to a new generation,
+ * and a user is only cached if no eviction happened since the reader noted the generation before its database
+ * read. There is one generation for the whole cache, as a load by username does not know its userid until it has
+ * read the row. An eviction of one user therefore also drops the puts of loads of other users that overlap it;
+ * those loads still return what they read, and the next read caches it.
+ */
+@Service(value = "userCache")
+public class UserCacheImpl
+        implements UserCache
+{
+    /**
+     * Users keyed by userid
+     */
+    private final Cache<Long, User> byId;
+
+    /**
+     * Userids keyed by lowercase username
+     */
+    private final Cache<String, Long> byName;
+
+    /**
+     * Moved on by every eviction, see put
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates the two caches
+     *
+     * @param maximumSize The most users (long) each cache holds before evicting
+     * @param ttlSeconds  How long (long), in seconds, an entry is kept after it is written
+     */
+    public UserCacheImpl(
+            @Value("${user.cache.maximum-size:10000}")
+                    long maximumSize,
+            @Value("${user.cache.ttl-seconds:300}")
+                    long ttlSeconds)
+    {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        byName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<User> getById(
+            long userid,
+            LongFunction<Optional<User>> loader)
+    {
+        User u = byId.getIfPresent(userid);
+        if (u == null)
+        {
+            // not computed inside the cache so a slow database read does not block other keys
+            long loadedAt = generation.get();
+            Optional<User> loaded = loader.apply(userid);
+            loaded.ifPresent(user -> put(user,
+                                         loadedAt));
+            return loaded;
+        }
+        return Optional.of(u);
+    }
+
+    @Override
+    public Optional<Long> getUseridByName(String username)
+    {
+        return Optional.ofNullable(byName.getIfPresent(username.toLowerCase()));
+    }
+
+    @Override
+    public long generation()
+    {
+        return generation.get();
+    }
+
+    @Override
+    public void put(
+            User user,
+            long loadedAt)
+    {
+        byId.put(user.getUserid(),
+                 user);
+        byName.put(user.getUsername(),
+                   user.getUserid());
+
+        // checked after the put rather than before, so an eviction cannot slip in between the check and the put.
+        // An eviction that moved the generation before this check is undone here; one that moves it after
+        // invalidates the user itself, as evictions move the generation before they invalidate.
+        if (generation.get() != loadedAt)
+        {
+            byId.asMap()
+                    .remove(user.getUserid(),
+                            user);
+            byName.asMap()
+                    .remove(user.getUsername(),
+                            user.getUserid());
+        }
+    }
+
+    @Override
+    public void evict(
+            long userid,
+            String username)
+    {
+        Runnable eviction = () ->
+        {
+            generation.incrementAndGet();
+            byId.invalidate(userid);
+            if (username != null)
+            {
+                byName.invalidate(username.toLowerCase());
+            }
+        };
+        // evict again once the transaction commits, as until then readers still load the old data. Moving the
+        // generation then also stops a reader that loaded the old data before the commit from caching it later.
+        eviction.run();
+        AfterCommit.run(eviction);
+    }
+
+    @Override
+    public void evictAll()
+    {
+        Runnable eviction = () ->
+        {
+            generation.incrementAndGet();
+            byId.invalidateAll();
+            byName.invalidateAll();
+        };
+        // and again once the transaction commits, as in evict
+        eviction.run();
+        AfterCommit.run(eviction);
+    }
+
+    @Override
+    public Map<String, Object> getStatistics()
+    {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("byId",
+                       toMap(byId.stats(),
+                             byId.estimatedSize()));
+        statistics.put("byName",
+                       toMap(byName.stats(),
+                             byName.estimatedSize()));
+        return statistics;
+    }
+
+    private static Map<String, Object> toMap(
+            CacheStats stats,
+            long size)
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size",
+                size);
+        map.put("hits",
+                stats.hitCount());
+        map.put("misses",
+                stats.missCount());
+        map.put("hitRate",
+                stats.hitRate());
+        map.put("evictions",
+                stats.evictionCount());
+        return map;
+    }
+}
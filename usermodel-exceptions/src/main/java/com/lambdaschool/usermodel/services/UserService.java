@@ -3,6 +3,7 @@ package com.lambdaschool.usermodel.services;
 import com.lambdaschool.usermodel.models.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The Service that works with User Model.
@@ -20,6 +21,28 @@ public interface UserService
      */
     List<User> findAll();
 
+    /**
+     * Returns one page of Users ordered by userid using keyset pagination.
+     * The cost of each page is the same no matter how far into the table the client has walked.
+     *
+     * @param afterUserid the last userid (long) the client has already seen. Use 0 to start at the beginning
+     * @param limit       the maximum number (int) of users to return
+     * @return List of at most limit Users whose userid is greater than afterUserid. If no more users, empty list.
+     */
+    List<User> findAllAfter(
+            long afterUserid,
+            int limit);
+
+    /**
+     * Hands every User, one at a time, to the given consumer without holding all users in memory.
+     * Each user, with its useremails and roles, is available to the consumer and then let go
+     * by the persistence context once the consumer returns.
+     *
+     * @param consumer what to do with each User, for example write it to a response
+     * @return the number (long) of users handed to the consumer
+     */
+    long exportAll(Consumer<User> consumer);
+
     /**
      * A list of all users whose username contains the given substring
      *
@@ -61,6 +84,16 @@ public interface UserService
      */
     User save(User user);
 
+    /**
+     * Given a list of complete new user objects, adds them all to the database in one transaction.
+     * All roles referenced by the users are read with one query and the inserts are sent to the database in batches.
+     * Any primary keys provided are ignored. If any user cannot be added, none are.
+     *
+     * @param users the new user objects to be added
+     * @return the saved user objects including their automatically generated primary keys
+     */
+    List<User> saveAll(List<User> users);
+
     /**
      * Updates the provided fields in the user record referenced by the primary key.
      * <p>
@@ -5,13 +5,26 @@ import com.lambdaschool.usermodel.models.User;
 import com.lambdaschool.usermodel.models.UserRoles;
 import com.lambdaschool.usermodel.models.Useremail;
 import com.lambdaschool.usermodel.repository.UserRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implements UserService Interface
@@ -33,19 +46,81 @@ public class UserServiceImpl
     @Autowired
     private RoleService roleService;
 
+    /**
+     * Connects this service to the in memory role catalog used to resolve the roles of users being written
+     */
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    /**
+     * Connects this service to the in memory username index used for substring searches
+     */
+    @Autowired
+    private UsernameIndex usernameIndex;
+
+    /**
+     * Connects this service to the cache of users by id and by username
+     */
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * Connects this service to the in memory index of which users hold which roles
+     */
+    @Autowired
+    private RoleMembershipIndex roleMembershipIndex;
+
+    /**
+     * The persistence context used to let go of users once they have been exported
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * How many users saveAll adds before flushing them to the database and clearing the persistence context.
+     * Matches the JDBC batch size so each flush fills whole batches.
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Transactional(readOnly = true)
+    @Override
     public User findUserById(long id) throws
             ResourceNotFoundException
     {
-        return userrepos.findById(id)
+        return userCache.getById(id,
+                                 this::loadForCache)
                 .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
     }
 
+    /**
+     * Reads a user from the database with everything needed to display it once detached,
+     * so it can be handed to the cache.
+     *
+     * @param id The primary key (long) of the user you seek
+     * @return Optional of the user with useremails and roles loaded
+     */
+    private Optional<User> loadForCache(long id)
+    {
+        Optional<User> u = userrepos.findDistinctByUserid(id);
+        u.ifPresent(uu -> Hibernate.initialize(uu.getUseremails()));
+        return u;
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public List<User> findByNameContaining(String username)
     {
-        return userrepos.findByUsernameContainingIgnoreCase(username.toLowerCase());
+        // the index finds the matching ids without a LIKE '%...%' scan of the users table
+        List<User> list = new ArrayList<>();
+        userrepos.findAllById(usernameIndex.findUseridsContaining(username))
+                .iterator()
+                .forEachRemaining(list::add);
+        list.sort(Comparator.comparingLong(User::getUserid));
+        return list;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<User> findAll()
     {
@@ -60,23 +135,73 @@ public class UserServiceImpl
         return list;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<User> findAllAfter(
+            long afterUserid,
+            int limit)
+    {
+        // always page 0 - the where clause does the seeking so the database never skips rows with OFFSET
+        return userrepos.findByUseridGreaterThanOrderByUseridAsc(afterUserid,
+                                                                 PageRequest.of(0,
+                                                                                limit));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public long exportAll(Consumer<User> consumer)
+    {
+        long count = 0;
+        try (Stream<User> users = userrepos.streamAllBy())
+        {
+            for (User u : (Iterable<User>) users::iterator)
+            {
+                consumer.accept(u);
+                // detaching cascades to useremails and roles so the persistence context does not grow
+                entityManager.detach(u);
+                count++;
+            }
+        }
+        return count;
+    }
+
     @Transactional
     @Override
     public void delete(long id)
     {
-        userrepos.findById(id)
+        User oldUser = userrepos.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
         userrepos.deleteById(id);
+        usernameIndex.remove(id);
+        roleMembershipIndex.removeUser(id);
+        userCache.evict(id,
+                        oldUser.getUsername());
     }
 
+    @Transactional(readOnly = true)
     @Override
     public User findByName(String name)
     {
-        User uu = userrepos.findByUsername(name.toLowerCase());
+        Optional<Long> cachedId = userCache.getUseridByName(name);
+        if (cachedId.isPresent())
+        {
+            Optional<User> cached = userCache.getById(cachedId.get(),
+                                                      this::loadForCache);
+            if (cached.isPresent())
+            {
+                return cached.get();
+            }
+        }
+
+        long loadedAt = userCache.generation();
+        User uu = userrepos.findDistinctByUsername(name.toLowerCase());
         if (uu == null)
         {
             throw new ResourceNotFoundException("User name " + name + " not found!");
         }
+        Hibernate.initialize(uu.getUseremails());
+        userCache.put(uu,
+                      loadedAt);
         return uu;
     }
 
@@ -88,9 +213,10 @@ public class UserServiceImpl
 
         if (user.getUserid() != 0)
         {
-            userrepos.findById(user.getUserid())
+            newUser = userrepos.findById(user.getUserid())
                     .orElseThrow(() -> new ResourceNotFoundException("User id " + user.getUserid() + " not found!"));
-            newUser.setUserid(user.getUserid());
+            userCache.evict(newUser.getUserid(),
+                            newUser.getUsername());
         }
 
         newUser.setUsername(user.getUsername()
@@ -101,10 +227,9 @@ public class UserServiceImpl
 
         newUser.getRoles()
                 .clear();
-        for (UserRoles ur : user.getRoles())
+        for (long roleid : roleidsOf(user))
         {
-            Role addRole = roleService.findRoleById(ur.getRole()
-                                                            .getRoleid());
+            Role addRole = resolveRole(roleid);
             newUser.getRoles()
                     .add(new UserRoles(newUser, addRole));
         }
@@ -118,7 +243,74 @@ public class UserServiceImpl
                                        ue.getUseremail()));
         }
 
-        return userrepos.save(newUser);
+        newUser = userrepos.save(newUser);
+        usernameIndex.put(newUser.getUserid(),
+                          newUser.getUsername());
+        roleMembershipIndex.setUserRoles(newUser.getUserid(),
+                                         roleidsOf(newUser));
+        return newUser;
+    }
+
+    @Transactional
+    @Override
+    public List<User> saveAll(List<User> users)
+    {
+        // resolve each distinct role once rather than once per user role
+        Map<Long, Role> roles = new HashMap<>();
+        for (User user : users)
+        {
+            for (UserRoles ur : user.getRoles())
+            {
+                roles.computeIfAbsent(ur.getRole()
+                                              .getRoleid(),
+                                      this::resolveRole);
+            }
+        }
+
+        List<User> savedUsers = new ArrayList<>(users.size());
+        for (User user : users)
+        {
+            User newUser = new User(user.getUsername(),
+                                    user.getPassword(),
+                                    user.getPrimaryemail()
+                                            .toLowerCase());
+            for (long roleid : roleidsOf(user))
+            {
+                newUser.getRoles()
+                        .add(new UserRoles(newUser,
+                                           roles.get(roleid)));
+            }
+            for (Useremail ue : user.getUseremails())
+            {
+                newUser.getUseremails()
+                        .add(new Useremail(newUser,
+                                           ue.getUseremail()));
+            }
+
+            entityManager.persist(newUser);
+            savedUsers.add(newUser);
+
+            // keep the persistence context small; the inserts so far go out as JDBC batches
+            if (savedUsers.size() % batchSize == 0)
+            {
+                entityManager.flush();
+                entityManager.clear();
+                // the roles were just detached. A user role is keyed by its role so it needs a managed one.
+                roles.replaceAll((id, r) -> entityManager.getReference(Role.class,
+                                                                       id));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        for (User newUser : savedUsers)
+        {
+            usernameIndex.put(newUser.getUserid(),
+                              newUser.getUsername());
+            roleMembershipIndex.setUserRoles(newUser.getUserid(),
+                                             roleidsOf(newUser));
+        }
+        return savedUsers;
     }
 
     @Transactional
@@ -127,7 +319,11 @@ public class UserServiceImpl
             User user,
             long id)
     {
-        User currentUser = findUserById(id);
+        // the cached copy is shared and detached, so change the copy managed by this transaction
+        User currentUser = userrepos.findDistinctByUserid(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
+        userCache.evict(id,
+                        currentUser.getUsername());
 
         if (user.getUsername() != null)
         {
@@ -151,10 +347,9 @@ public class UserServiceImpl
         {
             currentUser.getRoles()
                     .clear();
-            for (UserRoles ur : user.getRoles())
+            for (long roleid : roleidsOf(user))
             {
-                Role addRole = roleService.findRoleById(ur.getRole()
-                                                                .getRoleid());
+                Role addRole = resolveRole(roleid);
 
                 currentUser.getRoles()
                         .add(new UserRoles(currentUser, addRole));
@@ -174,7 +369,12 @@ public class UserServiceImpl
             }
         }
 
-        return userrepos.save(currentUser);
+        currentUser = userrepos.save(currentUser);
+        usernameIndex.put(currentUser.getUserid(),
+                          currentUser.getUsername());
+        roleMembershipIndex.setUserRoles(currentUser.getUserid(),
+                                         roleidsOf(currentUser));
+        return currentUser;
     }
 
     @Transactional
@@ -182,5 +382,45 @@ public class UserServiceImpl
     public void deleteAll()
     {
         userrepos.deleteAll();
+        usernameIndex.clear();
+        roleMembershipIndex.removeAllUsers();
+        userCache.evictAll();
+    }
+
+    /**
+     * Finds the role to attach to a user being written. Roles in the role catalog are attached by reference,
+     * with no query. A role the catalog does not know, such as one added earlier in this transaction,
+     * is looked up in the database.
+     *
+     * @param roleid the primary key (long) of the role
+     * @return the role with the given primary key
+     * @throws ResourceNotFoundException if no role has the given primary key
+     */
+    private Role resolveRole(long roleid)
+    {
+        if (roleCatalog.containsRoleid(roleid))
+        {
+            return entityManager.getReference(Role.class,
+                                              roleid);
+        }
+        return roleService.findRoleById(roleid);
+    }
+
+    /**
+     * Collects the primary keys of the roles a user holds, each once.
+     * A user role is only equal to itself, so a role listed twice in a request is only dropped here.
+     *
+     * @param user the user whose roles are wanted
+     * @return Set of roleids (Long) of the user's roles, in the order the roles are held
+     */
+    private static Set<Long> roleidsOf(User user)
+    {
+        Set<Long> roleids = new LinkedHashSet<>();
+        for (UserRoles ur : user.getRoles())
+        {
+            roleids.add(ur.getRole()
+                                .getRoleid());
+        }
+        return roleids;
     }
 }
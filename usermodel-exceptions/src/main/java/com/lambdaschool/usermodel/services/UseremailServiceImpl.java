@@ -31,6 +31,12 @@ public class UseremailServiceImpl
     @Autowired
     private UserService userService;
 
+    /**
+     * Cached users include their useremails, so changing an email evicts its user
+     */
+    @Autowired
+    private UserCache userCache;
+
     @Override
     public List<Useremail> findAll()
     {
@@ -59,6 +65,7 @@ public class UseremailServiceImpl
         if (useremailrepos.findById(id)
                 .isPresent())
         {
+            evictUser(findUseremailById(id));
             useremailrepos.deleteById(id);
         } else
         {
@@ -76,6 +83,7 @@ public class UseremailServiceImpl
                 .isPresent())
         {
             Useremail useremail = findUseremailById(useremailid);
+            evictUser(useremail);
             useremail.setUseremail(emailaddress.toLowerCase());
             return useremailrepos.save(useremail);
         } else
@@ -94,6 +102,21 @@ public class UseremailServiceImpl
 
         Useremail newUserEmail = new Useremail(currentUser,
                                                emailaddress);
+        userCache.evict(currentUser.getUserid(),
+                        currentUser.getUsername());
         return useremailrepos.save(newUserEmail);
     }
+
+    /**
+     * Removes the user owning the given useremail from the user cache
+     *
+     * @param useremail the useremail about to change
+     */
+    private void evictUser(Useremail useremail)
+    {
+        userCache.evict(useremail.getUser()
+                                .getUserid(),
+                        useremail.getUser()
+                                .getUsername());
+    }
 }
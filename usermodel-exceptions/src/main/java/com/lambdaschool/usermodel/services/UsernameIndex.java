@@ -0,0 +1,52 @@
+package com.lambdaschool.usermodel.services;
+
+import java.util.List;
+
+/**
+ * An in memory index of usernames used to answer "username contains" searches without scanning the users table.
+ * <p>
+ * Usernames are broken into trigrams, every run of three characters. Each trigram points to the users whose
+ * username contains it. A search intersects the lists for the trigrams of the search string and then only checks
+ * those few candidates.
+ * <p>
+ * Changes made inside a transaction are applied to the index once that transaction commits.
+ */
+public interface UsernameIndex
+{
+    /**
+     * Returns the primary keys of all users whose username contains the given substring
+     *
+     * @param substring The substring (String) you seek. Case does not matter.
+     * @return List of userids (Long), in ascending order, whose username contains the substring. If none, empty list.
+     */
+    List<Long> findUseridsContaining(String substring);
+
+    /**
+     * Adds a user to the index or replaces the username of a user already in the index
+     *
+     * @param userid   The primary key (long) of the user
+     * @param username The current username (String) of the user
+     */
+    void put(
+            long userid,
+            String username);
+
+    /**
+     * Removes a user from the index
+     *
+     * @param userid The primary key (long) of the user to remove
+     */
+    void remove(long userid);
+
+    /**
+     * Removes all users from the index
+     */
+    void clear();
+
+    /**
+     * Throws away the current index and builds a new one from the users table
+     *
+     * @return The number (int) of users now in the index
+     */
+    int rebuild();
+}
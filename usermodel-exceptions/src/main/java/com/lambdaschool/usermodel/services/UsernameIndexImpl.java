@@ -0,0 +1,284 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Implements the UsernameIndex Interface
+ */
+@Service(value = "usernameIndex")
+public class UsernameIndexImpl
+        implements UsernameIndex
+{
+    private static final Logger logger = LoggerFactory.getLogger(UsernameIndexImpl.class);
+
+    /**
+     * The length of each gram the usernames are broken into
+     */
+    private static final int GRAM = 3;
+
+    /**
+     * Connects this index to the User table. Only used when rebuilding the index.
+     */
+    @Autowired
+    private UserRepository userrepos;
+
+    /**
+     * The current username for each userid in the index. Used to check candidates and to find the old trigrams
+     * when a username changes.
+     */
+    private final Map<Long, String> usernames = new HashMap<>();
+
+    /**
+     * The posting lists. Each trigram points to the set of userids whose username contains that trigram.
+     */
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    /**
+     * Many searches may run at once. Changes wait for searches to finish.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public List<Long> findUseridsContaining(String substring)
+    {
+        String query = substring.toLowerCase();
+        List<Long> found = new ArrayList<>();
+
+        lock.readLock()
+                .lock();
+        try
+        {
+            if (query.length() < GRAM)
+            {
+                // too short to have a trigram so every username is a candidate
+                for (Map.Entry<Long, String> e : usernames.entrySet())
+                {
+                    if (e.getValue()
+                            .contains(query))
+                    {
+                        found.add(e.getKey());
+                    }
+                }
+            } else
+            {
+                List<Set<Long>> lists = new ArrayList<>();
+                for (String gram : trigrams(query))
+                {
+                    Set<Long> posting = postings.get(gram);
+                    if (posting == null)
+                    {
+                        // no username contains this trigram so no username can contain the query
+                        return found;
+                    }
+                    lists.add(posting);
+                }
+
+                // walk the shortest list and check the others, so the work is bounded by the rarest trigram
+                lists.sort(Comparator.comparingInt(Set::size));
+                for (Long userid : lists.get(0))
+                {
+                    boolean inAll = true;
+                    for (int i = 1; (i < lists.size()) && inAll; i++)
+                    {
+                        inAll = lists.get(i)
+                                .contains(userid);
+                    }
+
+                    // having all the trigrams does not mean they are in the right order, so verify the candidate
+                    if (inAll && usernames.get(userid)
+                            .contains(query))
+                    {
+                        found.add(userid);
+                    }
+                }
+            }
+        } finally
+        {
+            lock.readLock()
+                    .unlock();
+        }
+
+        found.sort(null);
+        return found;
+    }
+
+    @Override
+    public void put(
+            long userid,
+            String username)
+    {
+        AfterCommit.run(() -> doPut(userid,
+                                    username.toLowerCase()));
+    }
+
+    @Override
+    public void remove(long userid)
+    {
+        AfterCommit.run(() -> doRemove(userid));
+    }
+
+    @Override
+    public void clear()
+    {
+        AfterCommit.run(this::doClear);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public int rebuild()
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            doClear();
+            try (Stream<Object[]> rows = userrepos.streamUseridAndUsername())
+            {
+                rows.forEach(row -> doPut((Long) row[0],
+                                          (String) row[1]));
+            }
+            return usernames.size();
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    /**
+     * Builds the index from the database once the application, including any seed data, is ready
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup()
+    {
+        int count = rebuild();
+        logger.info("Username index built with " + count + " users");
+    }
+
+    private void doPut(
+            long userid,
+            String username)
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            String old = usernames.put(userid,
+                                       username);
+            if (old != null)
+            {
+                if (old.equals(username))
+                {
+                    return;
+                }
+                removePostings(userid,
+                               old);
+            }
+            for (String gram : trigrams(username))
+            {
+                postings.computeIfAbsent(gram,
+                                         k -> new HashSet<>())
+                        .add(userid);
+            }
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    private void doRemove(long userid)
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            String old = usernames.remove(userid);
+            if (old != null)
+            {
+                removePostings(userid,
+                               old);
+            }
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    private void doClear()
+    {
+        lock.writeLock()
+                .lock();
+        try
+        {
+            usernames.clear();
+            postings.clear();
+        } finally
+        {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    /**
+     * Takes the given user out of the posting list of each trigram of the given username.
+     * Must be called while holding the write lock.
+     *
+     * @param userid   the primary key (long) of the user
+     * @param username the username (String) whose trigrams the user is removed from
+     */
+    private void removePostings(
+            long userid,
+            String username)
+    {
+        for (String gram : trigrams(username))
+        {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null)
+            {
+                posting.remove(userid);
+                if (posting.isEmpty())
+                {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Breaks a string into its distinct trigrams
+     *
+     * @param s the string to break up
+     * @return the distinct trigrams (String) of s. Empty if s is shorter than a trigram.
+     */
+    private static Set<String> trigrams(String s)
+    {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= s.length(); i++)
+        {
+            grams.add(s.substring(i,
+                                  i + GRAM));
+        }
+        return grams;
+    }
+}
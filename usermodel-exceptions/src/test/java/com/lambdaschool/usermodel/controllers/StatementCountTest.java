@@ -0,0 +1,97 @@
+package com.lambdaschool.usermodel.controllers;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements the user and role reads send for the seed data, rendering the JSON included,
+ * so a change that brings back a query per user or per role fails here.
+ * <p>
+ * The user cache is turned off, so every read goes to the database.
+ */
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "user.cache.maximum-size=0",
+        "h2.tcp.enabled=false",
+        "h2.web.enabled=false"})
+@AutoConfigureMockMvc
+class StatementCountTest
+{
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void clearStatistics()
+    {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Sends a GET and returns the number of statements it prepared
+     */
+    private long statementsFor(String url) throws
+            Exception
+    {
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void listAllUsers() throws
+            Exception
+    {
+        assertEquals(3,
+                     statementsFor("/users/users"));
+    }
+
+    @Test
+    void getUserById() throws
+            Exception
+    {
+        assertEquals(2,
+                     statementsFor("/users/user/4"));
+    }
+
+    @Test
+    void getUserByName() throws
+            Exception
+    {
+        assertEquals(2,
+                     statementsFor("/users/user/name/cinnamon"));
+    }
+
+    @Test
+    void getUserLikeName() throws
+            Exception
+    {
+        assertEquals(3,
+                     statementsFor("/users/user/name/like/a"));
+    }
+
+    @Test
+    void listRoles() throws
+            Exception
+    {
+        assertEquals(3,
+                     statementsFor("/roles/roles"));
+    }
+}
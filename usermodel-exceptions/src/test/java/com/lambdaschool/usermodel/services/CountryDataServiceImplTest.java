@@ -0,0 +1,310 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.config.CountryApiConfig;
+import com.lambdaschool.usermodel.exceptions.BadRequestException;
+import com.lambdaschool.usermodel.exceptions.ServiceUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls the countries API through CountryDataServiceImpl against a stub server on a random local port, to check
+ * the pooled client, its timeouts, the circuit breaker and the bulkhead.
+ * <p>
+ * Each test asks for country codes of its own, as successful lookups are cached.
+ */
+@SpringBootTest(classes = {CountryApiConfig.class,
+        CountryDataServiceImpl.class,
+        JacksonAutoConfiguration.class,
+        CountryDataServiceImplTest.Metrics.class},
+        properties = {"country.api.read-timeout-ms=1000",
+                "country.breaker.minimum-calls=4",
+                "country.breaker.window-size=4",
+                "country.breaker.slow-call-ms=5000",
+                "country.bulkhead.max-calls=2"})
+class CountryDataServiceImplTest
+{
+    private static final byte[] COUNTRY = "{\"name\":\"Stubland\",\"population\":1}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The client ports the stub has been called from. One port is one connection.
+     */
+    private static final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * The status the stub answers with
+     */
+    private static volatile int status;
+
+    /**
+     * How long the stub waits before answering
+     */
+    private static volatile long delayMillis;
+
+    /**
+     * When set, the stub counts down arrived and then holds each request until release is counted down
+     */
+    private static volatile CountDownLatch arrived;
+
+    private static volatile CountDownLatch release;
+
+    private static final HttpServer stub = startStub();
+
+    @Autowired
+    private CountryDataService countryDataService;
+
+    @Autowired
+    @Qualifier("countryCircuitBreaker")
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * A meter registry for the prefetch timers and the circuit breaker metrics
+     */
+    @Configuration
+    static class Metrics
+    {
+        @Bean
+        MeterRegistry meterRegistry()
+        {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    private static HttpServer startStub()
+    {
+        try
+        {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                                                        0),
+                                                  0);
+            server.createContext("/rest/v2/alpha/",
+                                 CountryDataServiceImplTest::answer);
+            // slow and held requests must not hold up the others
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+            return server;
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void answer(HttpExchange exchange) throws
+            IOException
+    {
+        requests.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress()
+                                .getPort());
+        try
+        {
+            CountDownLatch held = release;
+            if (held != null)
+            {
+                arrived.countDown();
+                held.await(10,
+                           TimeUnit.SECONDS);
+            }
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+        }
+
+        exchange.getResponseHeaders()
+                .set("Content-Type",
+                     "application/json");
+        if (status == 200)
+        {
+            exchange.sendResponseHeaders(200,
+                                         COUNTRY.length);
+            exchange.getResponseBody()
+                    .write(COUNTRY);
+        } else
+        {
+            exchange.sendResponseHeaders(status,
+                                         -1);
+        }
+        exchange.close();
+    }
+
+    @DynamicPropertySource
+    static void countryApiUrl(DynamicPropertyRegistry registry)
+    {
+        registry.add("country.api.url",
+                     () -> "http://127.0.0.1:" + stub.getAddress()
+                             .getPort() + "/rest/v2/alpha/");
+    }
+
+    @AfterAll
+    static void stopStub()
+    {
+        stub.stop(0);
+    }
+
+    @BeforeEach
+    void resetStub()
+    {
+        status = 200;
+        delayMillis = 0;
+        arrived = null;
+        release = null;
+        clientPorts.clear();
+        requests.set(0);
+        circuitBreaker.reset();
+    }
+
+    @Test
+    void reusesOneConnectionForCallsInTurn()
+    {
+        for (String code : new String[]{"aaa", "aab", "aac", "aad", "aae"})
+        {
+            assertEquals("Stubland",
+                         countryDataService.findByCode(code)
+                                 .getName());
+        }
+
+        assertEquals(5,
+                     requests.get());
+        assertEquals(1,
+                     clientPorts.size());
+    }
+
+    @Test
+    void givesUpOnASlowAnswerAtTheReadTimeout()
+    {
+        delayMillis = 3000;
+
+        long start = System.nanoTime();
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                                                     () -> countryDataService.findByCode("baa"));
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(e.getMessage()
+                           .contains("did not answer in time"),
+                   e.getMessage());
+        assertTrue(waitedMillis >= 1000 && waitedMillis < 3000,
+                   "waited " + waitedMillis + " ms");
+    }
+
+    @Test
+    void opensTheBreakerAfterFailures()
+    {
+        status = 500;
+        for (String code : new String[]{"caa", "cab", "cac", "cad"})
+        {
+            ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                                                         () -> countryDataService.findByCode(code));
+            assertTrue(e.getMessage()
+                               .contains("status 500"),
+                       e.getMessage());
+        }
+        assertEquals(CircuitBreaker.State.OPEN,
+                     circuitBreaker.getState());
+
+        // refused without calling the countries API
+        status = 200;
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                                                     () -> countryDataService.findByCode("cae"));
+        assertTrue(e.getMessage()
+                           .contains("unavailable"),
+                   e.getMessage());
+        assertEquals(4,
+                     requests.get());
+    }
+
+    @Test
+    void keepsTheBreakerClosedOnRefusedCodes()
+    {
+        status = 400;
+        for (String code : new String[]{"eaa", "eab", "eac", "ead", "eae", "eaf"})
+        {
+            BadRequestException e = assertThrows(BadRequestException.class,
+                                                  () -> countryDataService.findByCode(code));
+            assertTrue(e.getMessage()
+                               .contains("status 400"),
+                       e.getMessage());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED,
+                     circuitBreaker.getState());
+        assertEquals(0,
+                     circuitBreaker.getMetrics()
+                             .getNumberOfFailedCalls());
+        assertEquals(6,
+                     requests.get());
+    }
+
+    @Test
+    void bulkheadRejectsCallsOverItsLimit() throws
+            Exception
+    {
+        arrived = new CountDownLatch(2);
+        release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<?> first = callers.submit(() -> countryDataService.findByCode("daa"));
+            Future<?> second = callers.submit(() -> countryDataService.findByCode("dab"));
+            assertTrue(arrived.await(5,
+                                     TimeUnit.SECONDS),
+                       "the stub did not receive both calls");
+
+            ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                                                         () -> countryDataService.findByCode("dac"));
+            assertTrue(e.getMessage()
+                               .contains("Too many calls"),
+                       e.getMessage());
+
+            release.countDown();
+            first.get(5,
+                      TimeUnit.SECONDS);
+            second.get(5,
+                       TimeUnit.SECONDS);
+        } finally
+        {
+            release.countDown();
+            callers.shutdownNow();
+        }
+
+        assertEquals(2,
+                     requests.get());
+        // the refused call is not a failure of the countries API
+        assertEquals(0,
+                     circuitBreaker.getMetrics()
+                             .getNumberOfFailedCalls());
+    }
+}
@@ -0,0 +1,113 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that a user loaded before an eviction is not cached after it. The eviction is made from inside the
+ * loader, as a write committing while a reader still holds the old row would.
+ */
+class UserCacheImplTest
+{
+    private final UserCacheImpl userCache = new UserCacheImpl(100,
+                                                              300);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static User user(
+            long userid,
+            String username)
+    {
+        User user = new User(username,
+                             "password",
+                             username + "@cache.local");
+        user.setUserid(userid);
+        return user;
+    }
+
+    @Test
+    void cachesALoadedUser()
+    {
+        User cinnamon = user(4,
+                             "cinnamon");
+        userCache.getById(4,
+                          id ->
+                          {
+                              loads.incrementAndGet();
+                              return Optional.of(cinnamon);
+                          });
+
+        assertSame(cinnamon,
+                   userCache.getById(4,
+                                     id ->
+                                     {
+                                         loads.incrementAndGet();
+                                         return Optional.empty();
+                                     })
+                           .get());
+        assertEquals(1,
+                     loads.get());
+        assertEquals(Optional.of(4L),
+                     userCache.getUseridByName("Cinnamon"));
+    }
+
+    @Test
+    void leavesOutAUserEvictedWhileItLoaded()
+    {
+        User stale = user(4,
+                          "cinnamon");
+        User loaded = userCache.getById(4,
+                                        id ->
+                                        {
+                                            loads.incrementAndGet();
+                                            userCache.evict(4,
+                                                            "cinnamon");
+                                            return Optional.of(stale);
+                                        })
+                .get();
+
+        // the reader still gets what it read, but it is not cached
+        assertSame(stale,
+                   loaded);
+        assertFalse(userCache.getUseridByName("cinnamon")
+                            .isPresent());
+        User fresh = user(4,
+                          "cinnamon");
+        assertSame(fresh,
+                   userCache.getById(4,
+                                     id ->
+                                     {
+                                         loads.incrementAndGet();
+                                         return Optional.of(fresh);
+                                     })
+                           .get());
+        assertEquals(2,
+                     loads.get());
+    }
+
+    @Test
+    void leavesOutAUserLoadedByNameBeforeAnEviction()
+    {
+        long loadedAt = userCache.generation();
+        userCache.evictAll();
+        userCache.put(user(7,
+                           "misskitty"),
+                      loadedAt);
+
+        assertFalse(userCache.getUseridByName("misskitty")
+                            .isPresent());
+
+        userCache.put(user(7,
+                           "misskitty"),
+                      userCache.generation());
+        assertEquals(Optional.of(7L),
+                     userCache.getUseridByName("misskitty"));
+    }
+}
@@ -0,0 +1,184 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * The users the load test works with: the ones the application was seeded with and the ones the load test
+ * creates while running.
+ * <p>
+ * The application seeds its users itself, through seed.users and seed.random-seed, so the same settings always
+ * give the same users.
+ */
+public class Dataset
+{
+    /**
+     * About how many email primary keys are kept, from the first users read
+     */
+    private static final int EMAIL_SAMPLE = 200;
+
+    /**
+     * The url (URI) of the application, ending in a slash
+     */
+    final URI base;
+
+    /**
+     * The primary key (long) of each user the application was seeded with
+     */
+    final long[] userids;
+
+    /**
+     * The username (String) of each of those users, in the same order as the userids
+     */
+    final String[] usernames;
+
+    /**
+     * The primary keys (long) of some of those users' emails
+     */
+    final long[] useremailids;
+
+    /**
+     * The primary key (long) of each role by lowercase name
+     */
+    final Map<String, Long> roleids;
+
+    /**
+     * The primary keys (Long) of users created during the run and not yet deleted
+     */
+    final Queue<Long> created = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Numbers the users and emails created during the run so their names never clash
+     */
+    final AtomicLong sequence = new AtomicLong();
+
+    private Dataset(
+            URI base,
+            long[] userids,
+            String[] usernames,
+            long[] useremailids,
+            Map<String, Long> roleids)
+    {
+        this.base = base;
+        this.userids = userids;
+        this.usernames = usernames;
+        this.useremailids = useremailids;
+        this.roleids = roleids;
+    }
+
+    /**
+     * Reads the users the application was seeded with, through GET /users/users/export, and its roles.
+     * The application seeds the users itself when started with --seed.users.
+     *
+     * @param client the client the requests are sent with
+     * @param mapper reads the JSON
+     * @param base   the url (URI) of the application, ending in a slash
+     * @return the users in the application
+     * @throws IOException          if a request fails or is refused, or the application has no users
+     * @throws InterruptedException if interrupted while waiting for a response
+     */
+    public static Dataset load(
+            HttpClient client,
+            ObjectMapper mapper,
+            URI base) throws
+            IOException,
+            InterruptedException
+    {
+        Map<String, Long> roleids = new HashMap<>();
+        for (JsonNode role : mapper.readTree(send(client,
+                                                  HttpRequest.newBuilder(base.resolve("roles/roles"))
+                                                          .GET()
+                                                          .build())))
+        {
+            roleids.put(role.get("name")
+                                .asText()
+                                .toLowerCase(Locale.ROOT),
+                        role.get("roleid")
+                                .asLong());
+        }
+
+        HttpRequest export = HttpRequest.newBuilder(base.resolve("users/users/export"))
+                .GET()
+                .build();
+        HttpResponse<Stream<String>> response = client.send(export,
+                                                            HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() >= 300)
+        {
+            throw new IOException("GET " + export.uri() + " answered " + response.statusCode());
+        }
+
+        List<Long> userids = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        List<Long> useremailids = new ArrayList<>();
+        // one user per line, read as they arrive so a million users are never held as JSON
+        try (Stream<String> lines = response.body())
+        {
+            for (Iterator<String> users = lines.iterator(); users.hasNext(); )
+            {
+                JsonNode user = mapper.readTree(users.next());
+                userids.add(user.get("userid")
+                                    .asLong());
+                usernames.add(user.get("username")
+                                      .asText());
+                if (useremailids.size() < EMAIL_SAMPLE)
+                {
+                    for (JsonNode useremail : user.path("useremails"))
+                    {
+                        useremailids.add(useremail.get("useremailid")
+                                                 .asLong());
+                    }
+                }
+            }
+        }
+        if (userids.isEmpty())
+        {
+            throw new IOException("The application at " + base + " has no users to test with");
+        }
+
+        return new Dataset(base,
+                           userids.stream()
+                                   .mapToLong(Long::longValue)
+                                   .toArray(),
+                           usernames.toArray(new String[0]),
+                           useremailids.stream()
+                                   .mapToLong(Long::longValue)
+                                   .toArray(),
+                           roleids);
+    }
+
+    /**
+     * Sends a request while loading, which must succeed
+     *
+     * @return the body of the response
+     */
+    private static byte[] send(
+            HttpClient client,
+            HttpRequest request) throws
+            IOException,
+            InterruptedException
+    {
+        HttpResponse<byte[]> response = client.send(request,
+                                                    HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 300)
+        {
+            throw new IOException(request.method() + " " + request.uri() + " answered " + response.statusCode() + ": " + new String(response.body()));
+        }
+        return response.body();
+    }
+}
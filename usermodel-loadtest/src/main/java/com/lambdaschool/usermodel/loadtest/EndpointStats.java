@@ -0,0 +1,118 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of one operation: the latency of each response, and how the requests ended.
+ * Latencies are measured from when the request was due to be sent, not from when it was sent,
+ * so time spent waiting behind a slow application counts against it.
+ */
+public class EndpointStats
+{
+    /**
+     * Latencies in microseconds. Recording is wait free so the response threads never wait on each other.
+     */
+    private final Recorder latencies = new Recorder(3);
+
+    private final LongAdder ok = new LongAdder();
+
+    private final LongAdder clientErrors = new LongAdder();
+
+    private final LongAdder serverErrors = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Records a response
+     *
+     * @param status        the Http status (int) of the response
+     * @param latencyMicros the time (long), in microseconds, from when the request was due to when the response arrived
+     */
+    void response(
+            int status,
+            long latencyMicros)
+    {
+        latencies.recordValue(latencyMicros);
+        if (status >= 500)
+        {
+            serverErrors.increment();
+        } else if (status >= 400)
+        {
+            clientErrors.increment();
+        } else
+        {
+            ok.increment();
+        }
+    }
+
+    /**
+     * Records a request that got no response, such as one that timed out
+     */
+    void failure()
+    {
+        failed.increment();
+    }
+
+    /**
+     * Records a request that was not sent because too many requests were already waiting for responses
+     */
+    void drop()
+    {
+        dropped.increment();
+    }
+
+    /**
+     * Records a request that could not be made, such as a delete with nothing left to delete
+     */
+    void skip()
+    {
+        skipped.increment();
+    }
+
+    /**
+     * Takes the latencies recorded so far
+     *
+     * @return the latencies, in microseconds, recorded since the last call
+     */
+    Histogram takeLatencies()
+    {
+        return latencies.getIntervalHistogram();
+    }
+
+    long ok()
+    {
+        return ok.sum();
+    }
+
+    long clientErrors()
+    {
+        return clientErrors.sum();
+    }
+
+    long serverErrors()
+    {
+        return serverErrors.sum();
+    }
+
+    long failed()
+    {
+        return failed.sum();
+    }
+
+    long dropped()
+    {
+        return dropped.sum();
+    }
+
+    long skipped()
+    {
+        return skipped.sum();
+    }
+}
@@ -0,0 +1,231 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.usermodel.UserModelApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs a load test against the user model application and prints the latency percentiles and throughput of
+ * each endpoint.
+ * <p>
+ * Options, each given as --name=value
+ * <ul>
+ * <li>url: the application to test, such as http://localhost:2019/. If not given, the application is booted in this JVM on a random port.
+ * An application given by url must have been started with --seed.users.</li>
+ * <li>users: the number of users the application booted in this JVM seeds, default 1000</li>
+ * <li>scenario: read-heavy, write-heavy or error-heavy, default read-heavy</li>
+ * <li>rate: the requests to send each second, default 200</li>
+ * <li>warmup: the seconds to send requests before recording them, default 10</li>
+ * <li>duration: the seconds to send and record requests after the warm up, default 30</li>
+ * <li>max-in-flight: the most requests waiting for responses at once, default 1000</li>
+ * <li>seed: the seed for the users of the application booted in this JVM and for the random choices, default 42</li>
+ * <li>hgrm: a directory to write the full latency distribution of each endpoint to, not written if not given</li>
+ * </ul>
+ */
+public class LoadTest
+{
+    public static void main(String[] args) throws
+            Exception
+    {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args)
+        {
+            if (!arg.startsWith("--") || !arg.contains("="))
+            {
+                throw new IllegalArgumentException("Options are given as --name=value, not " + arg);
+            }
+            options.put(arg.substring(2,
+                                      arg.indexOf('=')),
+                        arg.substring(arg.indexOf('=') + 1));
+        }
+
+        Scenario scenario = Scenario.of(options.getOrDefault("scenario",
+                                                             "read-heavy"));
+        int users = Integer.parseInt(options.getOrDefault("users",
+                                                          "1000"));
+        double rate = Double.parseDouble(options.getOrDefault("rate",
+                                                              "200"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup",
+                                                                                 "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration",
+                                                                                   "30")));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight",
+                                                                "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed",
+                                                        "42"));
+
+        ConfigurableApplicationContext context = null;
+        String url = options.get("url");
+        if (url == null)
+        {
+            // on a random port without its H2 servers, on a database of its own, seeding the users itself
+            long bootStart = System.nanoTime();
+            context = new SpringApplicationBuilder(UserModelApplication.class)
+                    .bannerMode(Banner.Mode.OFF)
+                    .logStartupInfo(false)
+                    .run("--server.port=0",
+                         "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                         "--h2.tcp.enabled=false",
+                         "--h2.web.enabled=false",
+                         "--logging.level.root=WARN",
+                         "--seed.users=" + users,
+                         "--seed.random-seed=" + seed);
+            url = "http://localhost:" + context.getEnvironment()
+                    .getProperty("local.server.port") + "/";
+            System.out.printf("Booted the application and seeded %d users in %.1f s%n",
+                              users,
+                              (System.nanoTime() - bootStart) / 1e9);
+        }
+
+        try
+        {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            URI base = URI.create(url.endsWith("/") ? url : url + "/");
+
+            long loadStart = System.nanoTime();
+            Dataset dataset = Dataset.load(client,
+                                           new ObjectMapper(),
+                                           base);
+            System.out.printf("Read %d users in %.1f s%n",
+                              dataset.userids.length,
+                              (System.nanoTime() - loadStart) / 1e9);
+            System.out.printf("Running %s at %.0f requests a second against %s, %d s warm up then %d s recorded%n",
+                              scenario,
+                              rate,
+                              base,
+                              warmup.getSeconds(),
+                              duration.getSeconds());
+
+            Map<String, EndpointStats> stats = new OpenModelRunner(client,
+                                                                   dataset,
+                                                                   scenario,
+                                                                   maxInFlight).run(rate,
+                                                                                    warmup,
+                                                                                    duration,
+                                                                                    seed);
+            report(stats,
+                   duration,
+                   options.get("hgrm"));
+        } finally
+        {
+            if (context != null)
+            {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Prints a line for each endpoint, and one for all of them together. Latencies are in milliseconds.
+     */
+    private static void report(
+            Map<String, EndpointStats> stats,
+            Duration duration,
+            String hgrmDirectory) throws
+            IOException
+    {
+        String format = "%-55s %8s %8s %7s %7s %7s %7s %7s %7s %9s %9s %9s %9s %9s%n";
+        System.out.printf(format,
+                          "endpoint",
+                          "count",
+                          "req/s",
+                          "2xx",
+                          "4xx",
+                          "5xx",
+                          "failed",
+                          "dropped",
+                          "skipped",
+                          "p50",
+                          "p90",
+                          "p99",
+                          "p99.9",
+                          "max");
+
+        Histogram all = new Histogram(3);
+        long[] allCounts = new long[6];
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet())
+        {
+            EndpointStats endpoint = entry.getValue();
+            Histogram latencies = endpoint.takeLatencies();
+            all.add(latencies);
+            long[] counts = {endpoint.ok(), endpoint.clientErrors(), endpoint.serverErrors(), endpoint.failed(), endpoint.dropped(), endpoint.skipped()};
+            for (int i = 0; i < counts.length; i++)
+            {
+                allCounts[i] += counts[i];
+            }
+            printLine(format,
+                      entry.getKey(),
+                      latencies,
+                      counts,
+                      duration);
+
+            if (hgrmDirectory != null)
+            {
+                Path directory = Paths.get(hgrmDirectory);
+                Files.createDirectories(directory);
+                try (PrintStream out = new PrintStream(new FileOutputStream(directory.resolve(entry.getKey()
+                                                                                                      .replaceAll("[^A-Za-z0-9]+",
+                                                                                                                  "_") + ".hgrm")
+                                                                                    .toFile())))
+                {
+                    // microseconds in the histogram, milliseconds in the file
+                    latencies.outputPercentileDistribution(out,
+                                                           1000.0);
+                }
+            }
+        }
+        printLine(format,
+                  "all",
+                  all,
+                  allCounts,
+                  duration);
+    }
+
+    private static void printLine(
+            String format,
+            String name,
+            Histogram latencies,
+            long[] counts,
+            Duration duration)
+    {
+        System.out.printf(format,
+                          name,
+                          latencies.getTotalCount(),
+                          String.format("%.1f",
+                                        latencies.getTotalCount() / (double) duration.getSeconds()),
+                          counts[0],
+                          counts[1],
+                          counts[2],
+                          counts[3],
+                          counts[4],
+                          counts[5],
+                          millis(latencies.getValueAtPercentile(50)),
+                          millis(latencies.getValueAtPercentile(90)),
+                          millis(latencies.getValueAtPercentile(99)),
+                          millis(latencies.getValueAtPercentile(99.9)),
+                          millis(latencies.getMaxValue()));
+    }
+
+    private static String millis(long micros)
+    {
+        return String.format("%.2f",
+                             micros / 1000.0);
+    }
+}
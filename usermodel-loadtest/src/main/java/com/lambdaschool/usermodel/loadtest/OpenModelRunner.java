@@ -0,0 +1,175 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a constant rate, whether or not earlier requests have been answered.
+ * <p>
+ * A closed model, where each user waits for a response before sending the next request, slows down along with
+ * the application and so hides how slow it got. Here request n is due at start + n / rate and is sent then,
+ * and its latency is counted from that time. Requests are sent without blocking so a slow response never
+ * holds up the next request.
+ */
+public class OpenModelRunner
+{
+    /**
+     * How long a request may wait for its response before it is counted as failed
+     */
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+
+    private final Dataset dataset;
+
+    private final Scenario scenario;
+
+    /**
+     * The most requests (int) waiting for responses at once. Requests due while this many are waiting are dropped.
+     */
+    private final int maxInFlight;
+
+    /**
+     * The results of each operation of the scenario, by name
+     */
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Creates a runner for a scenario
+     *
+     * @param client      the client the requests are sent with
+     * @param dataset     the users to work with
+     * @param scenario    the mix of requests to send
+     * @param maxInFlight the most requests (int) waiting for responses at once
+     */
+    public OpenModelRunner(
+            HttpClient client,
+            Dataset dataset,
+            Scenario scenario,
+            int maxInFlight)
+    {
+        this.client = client;
+        this.dataset = dataset;
+        this.scenario = scenario;
+        this.maxInFlight = maxInFlight;
+        for (Operation operation : scenario.operations())
+        {
+            stats.put(operation.name(),
+                      new EndpointStats());
+        }
+    }
+
+    /**
+     * Sends requests for the given time then waits for the responses still outstanding.
+     * Only requests due after the warm up are recorded.
+     *
+     * @param rate     the requests (double) to send each second
+     * @param warmup   how long to send requests before recording them
+     * @param duration how long to send and record requests after the warm up
+     * @param seed     the seed (long) for the random choices of the run
+     * @return the results of each operation, by name
+     * @throws InterruptedException if interrupted while waiting for responses
+     */
+    public Map<String, EndpointStats> run(
+            double rate,
+            Duration warmup,
+            Duration duration,
+            long seed) throws
+            InterruptedException
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        double interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+
+        for (long n = 0; ; n++)
+        {
+            long due = start + (long) (n * interval);
+            if (due >= end)
+            {
+                break;
+            }
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0)
+            {
+                LockSupport.parkNanos(wait);
+            }
+            send(scenario.pick(random),
+                 random,
+                 due,
+                 due >= recordFrom);
+        }
+
+        // let the outstanding requests finish, or time out
+        long giveUp = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while ((inFlight.get() > 0) && (System.nanoTime() < giveUp))
+        {
+            Thread.sleep(10);
+        }
+        return stats;
+    }
+
+    private void send(
+            Operation operation,
+            SplittableRandom random,
+            long due,
+            boolean record)
+    {
+        EndpointStats endpoint = stats.get(operation.name());
+        HttpRequest request = operation.request(dataset,
+                                                random);
+        if (request == null)
+        {
+            if (record)
+            {
+                endpoint.skip();
+            }
+            return;
+        }
+        if (inFlight.incrementAndGet() > maxInFlight)
+        {
+            inFlight.decrementAndGet();
+            if (record)
+            {
+                endpoint.drop();
+            }
+            return;
+        }
+
+        client.sendAsync(request,
+                         HttpResponse.BodyHandlers.discarding())
+                .orTimeout(REQUEST_TIMEOUT.toMillis(),
+                           TimeUnit.MILLISECONDS)
+                .whenComplete((response, ex) ->
+                              {
+                                  long latency = System.nanoTime() - due;
+                                  inFlight.decrementAndGet();
+                                  if (ex != null)
+                                  {
+                                      if (record)
+                                      {
+                                          endpoint.failure();
+                                      }
+                                      return;
+                                  }
+                                  operation.completed(dataset,
+                                                      response);
+                                  if (record)
+                                  {
+                                      endpoint.response(response.statusCode(),
+                                                        TimeUnit.NANOSECONDS.toMicros(latency));
+                                  }
+                              });
+    }
+}
@@ -0,0 +1,42 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+
+/**
+ * One kind of request a scenario sends. Its name, such as GET /users/user/{userId}, is the endpoint its latencies
+ * are reported under.
+ */
+public interface Operation
+{
+    /**
+     * The name the results of this operation are reported under
+     *
+     * @return the name (String) of the operation
+     */
+    String name();
+
+    /**
+     * Makes the next request of this kind. Only ever called from the thread sending the requests.
+     *
+     * @param dataset the users to work with
+     * @param random  the random choices of the run
+     * @return the request to send, or null if it cannot be made right now, for example when there is nothing to delete
+     */
+    HttpRequest request(
+            Dataset dataset,
+            SplittableRandom random);
+
+    /**
+     * Called with every response to a request of this kind. May be called from several threads at once.
+     *
+     * @param dataset  the users to work with
+     * @param response the response
+     */
+    default void completed(
+            Dataset dataset,
+            HttpResponse<?> response)
+    {
+    }
+}
@@ -0,0 +1,168 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+
+/**
+ * The operations the scenarios are made of. The ones named (missing), (duplicate) or (not a number) are
+ * meant to fail, and exercise the exception handling.
+ */
+public final class Operations
+{
+    public static final Operation GET_USER = of("GET /users/user/{userId}",
+                                                (d, r) -> get(d,
+                                                              "users/user/" + d.userids[r.nextInt(d.userids.length)]));
+
+    public static final Operation GET_USER_BY_NAME = of("GET /users/user/name/{userName}",
+                                                        (d, r) -> get(d,
+                                                                      "users/user/name/" + d.usernames[r.nextInt(d.usernames.length)]));
+
+    public static final Operation FIND_USERS_LIKE = of("GET /users/user/name/like/{userName}",
+                                                       (d, r) -> get(d,
+                                                                     "users/user/name/like/" + d.usernames[r.nextInt(d.usernames.length)]));
+
+    public static final Operation GET_USEREMAIL = of("GET /useremails/useremail/{useremailId}",
+                                                     (d, r) -> (d.useremailids.length == 0) ? null : get(d,
+                                                                                                          "useremails/useremail/" + d.useremailids[r.nextInt(d.useremailids.length)]));
+
+    public static final Operation GET_ROLES = of("GET /roles/roles",
+                                                 (d, r) -> get(d,
+                                                               "roles/roles"));
+
+    public static final Operation COUNT_ROLE_USERS = of("GET /roles/role/{roleid}/users/count",
+                                                        (d, r) -> get(d,
+                                                                      "roles/role/" + d.roleids.get("user") + "/users/count"));
+
+    public static final Operation ADD_USER = new Operation()
+    {
+        @Override
+        public String name()
+        {
+            return "POST /users/user";
+        }
+
+        @Override
+        public HttpRequest request(
+                Dataset dataset,
+                SplittableRandom random)
+        {
+            String username = "load" + dataset.sequence.incrementAndGet();
+            return post(dataset,
+                        "users/user",
+                        "{\"username\":\"" + username + "\",\"password\":\"password\",\"primaryemail\":\"" + username + "@load.local\"," +
+                                "\"roles\":[{\"role\":{\"roleid\":" + dataset.roleids.get("user") + "}}]," +
+                                "\"useremails\":[{\"useremail\":\"" + username + "@mail.local\"}]}");
+        }
+
+        @Override
+        public void completed(
+                Dataset dataset,
+                HttpResponse<?> response)
+        {
+            // the new user's url ends in its primary key
+            response.headers()
+                    .firstValue("Location")
+                    .ifPresent(location -> dataset.created.add(Long.parseLong(location.substring(location.lastIndexOf('/') + 1))));
+        }
+    };
+
+    public static final Operation PATCH_USER = of("PATCH /users/user/{id}",
+                                                  (d, r) -> HttpRequest.newBuilder(d.base.resolve("users/user/" + d.userids[r.nextInt(d.userids.length)]))
+                                                          .header("Content-Type",
+                                                                  "application/json")
+                                                          .method("PATCH",
+                                                                  HttpRequest.BodyPublishers.ofString("{\"primaryemail\":\"patched" + d.sequence.incrementAndGet() + "@load.local\"}"))
+                                                          .build());
+
+    public static final Operation ADD_USEREMAIL = of("POST /useremails/user/{userid}/email/{emailaddress}",
+                                                     (d, r) -> HttpRequest.newBuilder(d.base.resolve("useremails/user/" + d.userids[r.nextInt(d.userids.length)] + "/email/added" + d.sequence.incrementAndGet() + "@load.local"))
+                                                             .POST(HttpRequest.BodyPublishers.noBody())
+                                                             .build());
+
+    /**
+     * Deletes a user created earlier in the run, so the seeded users the other operations use stay put
+     */
+    public static final Operation DELETE_USER = of("DELETE /users/user/{id}",
+                                                   (d, r) ->
+                                                   {
+                                                       Long userid = d.created.poll();
+                                                       return (userid == null) ? null : HttpRequest.newBuilder(d.base.resolve("users/user/" + userid))
+                                                               .DELETE()
+                                                               .build();
+                                                   });
+
+    public static final Operation GET_MISSING_USER = of("GET /users/user/{userId} (missing)",
+                                                        (d, r) -> get(d,
+                                                                      "users/user/" + (Long.MAX_VALUE - r.nextInt(1_000_000))));
+
+    public static final Operation GET_MISSING_USER_BY_NAME = of("GET /users/user/name/{userName} (missing)",
+                                                                (d, r) -> get(d,
+                                                                              "users/user/name/nobody" + r.nextInt(1_000_000)));
+
+    public static final Operation GET_USER_NOT_A_NUMBER = of("GET /users/user/{userId} (not a number)",
+                                                             (d, r) -> get(d,
+                                                                           "users/user/abc" + r.nextInt(1000)));
+
+    public static final Operation GET_MISSING_ROLE = of("GET /roles/role/{roleId} (missing)",
+                                                        (d, r) -> get(d,
+                                                                      "roles/role/" + (Long.MAX_VALUE - r.nextInt(1_000_000))));
+
+    public static final Operation ADD_DUPLICATE_USER = of("POST /users/user (duplicate)",
+                                                          (d, r) ->
+                                                          {
+                                                              String username = d.usernames[r.nextInt(d.usernames.length)];
+                                                              return post(d,
+                                                                          "users/user",
+                                                                          "{\"username\":\"" + username + "\",\"password\":\"password\",\"primaryemail\":\"dup" + d.sequence.incrementAndGet() + "@load.local\"}");
+                                                          });
+
+    private Operations()
+    {
+    }
+
+    private static Operation of(
+            String name,
+            BiFunction<Dataset, SplittableRandom, HttpRequest> request)
+    {
+        return new Operation()
+        {
+            @Override
+            public String name()
+            {
+                return name;
+            }
+
+            @Override
+            public HttpRequest request(
+                    Dataset dataset,
+                    SplittableRandom random)
+            {
+                return request.apply(dataset,
+                                     random);
+            }
+        };
+    }
+
+    private static HttpRequest get(
+            Dataset dataset,
+            String path)
+    {
+        return HttpRequest.newBuilder(dataset.base.resolve(path))
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest post(
+            Dataset dataset,
+            String path,
+            String json)
+    {
+        return HttpRequest.newBuilder(dataset.base.resolve(path))
+                .header("Content-Type",
+                        "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * The mixes of requests a load test can send. Each operation is picked at random in proportion to its weight.
+ */
+public enum Scenario
+{
+    /**
+     * Mostly lookups of users, emails and roles, with a few writes
+     */
+    READ_HEAVY(
+            new Weighted(Operations.GET_USER,
+                         40),
+            new Weighted(Operations.GET_USER_BY_NAME,
+                         20),
+            new Weighted(Operations.FIND_USERS_LIKE,
+                         10),
+            new Weighted(Operations.GET_USEREMAIL,
+                         10),
+            new Weighted(Operations.GET_ROLES,
+                         5),
+            new Weighted(Operations.COUNT_ROLE_USERS,
+                         5),
+            new Weighted(Operations.ADD_USER,
+                         5),
+            new Weighted(Operations.PATCH_USER,
+                         5)),
+
+    /**
+     * Mostly creating, changing and deleting users and emails
+     */
+    WRITE_HEAVY(
+            new Weighted(Operations.ADD_USER,
+                         30),
+            new Weighted(Operations.PATCH_USER,
+                         20),
+            new Weighted(Operations.ADD_USEREMAIL,
+                         15),
+            new Weighted(Operations.DELETE_USER,
+                         15),
+            new Weighted(Operations.GET_USER,
+                         20)),
+
+    /**
+     * Mostly requests that fail, so most responses come from RestExceptionHandler
+     */
+    ERROR_HEAVY(
+            new Weighted(Operations.GET_MISSING_USER,
+                         30),
+            new Weighted(Operations.GET_MISSING_USER_BY_NAME,
+                         15),
+            new Weighted(Operations.ADD_DUPLICATE_USER,
+                         15),
+            new Weighted(Operations.GET_MISSING_ROLE,
+                         10),
+            new Weighted(Operations.GET_USER_NOT_A_NUMBER,
+                         10),
+            new Weighted(Operations.GET_USER,
+                         20));
+
+    private final Operation[] operations;
+
+    /**
+     * The running total of the weights, so operation i is picked for draws below totals[i]
+     */
+    private final int[] totals;
+
+    Scenario(Weighted... weighted)
+    {
+        operations = new Operation[weighted.length];
+        totals = new int[weighted.length];
+        int total = 0;
+        for (int i = 0; i < weighted.length; i++)
+        {
+            operations[i] = weighted[i].operation;
+            total += weighted[i].weight;
+            totals[i] = total;
+        }
+    }
+
+    /**
+     * Picks the next operation to send
+     *
+     * @param random the random choices of the run
+     * @return the operation
+     */
+    public Operation pick(SplittableRandom random)
+    {
+        int draw = random.nextInt(totals[totals.length - 1]);
+        int i = 0;
+        while (draw >= totals[i])
+        {
+            i++;
+        }
+        return operations[i];
+    }
+
+    /**
+     * The operations of this scenario, in the order they were given
+     *
+     * @return the operations
+     */
+    public Operation[] operations()
+    {
+        return operations.clone();
+    }
+
+    /**
+     * Finds a scenario by name, such as read-heavy
+     *
+     * @param name the name (String) of the scenario. Case does not matter and a dash may stand for the underscore.
+     * @return the scenario
+     */
+    public static Scenario of(String name)
+    {
+        return valueOf(name.toUpperCase(Locale.ROOT)
+                               .replace('-',
+                                        '_'));
+    }
+
+    /**
+     * An operation and how often it is picked compared to the others
+     */
+    private static final class Weighted
+    {
+        private final Operation operation;
+
+        private final int weight;
+
+        private Weighted(
+                Operation operation,
+                int weight)
+        {
+            this.operation = operation;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Contains the HTTP load tests for the user model application.
+ * Requests arrive at a constant rate whatever the response times, and the latency of every request is recorded
+ * per endpoint in an HdrHistogram.
+ *
+ * @author John Mitchell (john@lambdaschool.com) with Lambda School unless otherwise noted.
+ */
+package com.lambdaschool.usermodel.loadtest;